@@ -1,5 +1,11 @@
 package com.btalk.config;
 
+import com.btalk.utils.HandOffExecutor;
+import com.btalk.utils.LaneExecutor;
+import com.btalk.utils.TimingWheel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -9,53 +15,174 @@ import java.util.concurrent.Executor;
 
 @Configuration
 @EnableAsync
+@RequiredArgsConstructor
 public class AsyncConfig {
 
+    // In virtual mode the JDBC-bound executors are unbounded; the database pool is
+    // protected by the permit limit in DataSourceLimitConfig instead of pool sizes
+    private final ExecutionMode executionMode;
+
+    // On shutdown queued tasks still run; the drain coordinator has already waited for
+    // them while the broker was up, this only bounds what is left
+    @Value("${app.drain.executor-await-ms:10000}")
+    private long executorAwaitMs;
+
+    // Hand-offs from the timing wheel retry a rejected task after 1x, 2x, ... this delay
+    @Value("${app.execution.hand-off.retry-delay-ms:1000}")
+    private long handOffRetryDelayMs;
+
+    @Value("${app.execution.hand-off.max-attempts:5}")
+    private int handOffMaxAttempts;
+
     @Bean(name = "notificationTaskExecutor")
     public Executor notificationTaskExecutor() {
+        if (executionMode.isVirtualThreads()) {
+            return executionMode.newVirtualExecutor("Notification-", 0);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(10);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("Notification-");
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(executorAwaitMs);
         executor.initialize();
         return executor;
     }
 
     @Bean(name = "messageTaskExecutor")
     public Executor messageTaskExecutor() {
+        if (executionMode.isVirtualThreads()) {
+            return executionMode.newVirtualExecutor("Message-", 0);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(10);
         executor.setMaxPoolSize(20);
         executor.setQueueCapacity(200);
         executor.setThreadNamePrefix("Message-");
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(executorAwaitMs);
         executor.initialize();
         return executor;
     }
 
     @Bean(name = "fileUploadTaskExecutor")
     public Executor fileUploadTaskExecutor() {
+        if (executionMode.isVirtualThreads()) {
+            // File I/O is not covered by the database permits, so keep the platform pool's ceiling
+            return executionMode.newVirtualExecutor("FileUpload-", 8);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(3);
         executor.setMaxPoolSize(8);
         executor.setQueueCapacity(50);
         executor.setThreadNamePrefix("FileUpload-");
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(executorAwaitMs);
         executor.initialize();
         return executor;
     }
 
     @Bean(name = "websocketTaskExecutor")
     public Executor websocketTaskExecutor() {
+        if (executionMode.isVirtualThreads()) {
+            return executionMode.newVirtualExecutor("WebSocket-", 0);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(8);
         executor.setMaxPoolSize(15);
         executor.setQueueCapacity(150);
         executor.setThreadNamePrefix("WebSocket-");
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(executorAwaitMs);
         executor.initialize();
         return executor;
     }
-} 
\ No newline at end of file
+
+    // Final call records and call-end notifications; kept apart from the message pool so that
+    // ring timeouts fired on the timing wheel never run this work themselves
+    @Bean(name = "callRecordTaskExecutor")
+    public Executor callRecordTaskExecutor() {
+        if (executionMode.isVirtualThreads()) {
+            return executionMode.newVirtualExecutor("CallRecord-", 0);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("CallRecord-");
+        // Default AbortPolicy: callRecordExecutor retries rejected tasks from the wheel instead
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(executorAwaitMs);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "callRecordExecutor")
+    public HandOffExecutor callRecordExecutor(@Qualifier("callRecordTaskExecutor") Executor callRecordTaskExecutor,
+                                              TimingWheel timingWheel) {
+        return new HandOffExecutor("call record", callRecordTaskExecutor, timingWheel,
+                handOffRetryDelayMs, handOffMaxAttempts);
+    }
+
+    // Fan-outs triggered by timers on the wheel (presence OFFLINE/AWAY); never CallerRunsPolicy,
+    // which would run the fan-out and its membership lookups on the wheel thread
+    @Bean(name = "wheelTaskExecutor")
+    public Executor wheelTaskExecutor() {
+        if (executionMode.isVirtualThreads()) {
+            return executionMode.newVirtualExecutor("WheelTask-", 0);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("WheelTask-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(executorAwaitMs);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "wheelHandOffExecutor")
+    public HandOffExecutor wheelHandOffExecutor(@Qualifier("wheelTaskExecutor") Executor wheelTaskExecutor,
+                                                TimingWheel timingWheel) {
+        return new HandOffExecutor("timer fan-out", wheelTaskExecutor, timingWheel,
+                handOffRetryDelayMs, handOffMaxAttempts);
+    }
+
+    // Drains per-session outbound queues so that a slow socket write never holds a broker thread
+    @Bean(name = "websocketOutboundExecutor")
+    public Executor websocketOutboundExecutor() {
+        if (executionMode.isVirtualThreads()) {
+            return executionMode.newVirtualExecutor("WsOutbound-", 0);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(32);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("WsOutbound-");
+        // Default AbortPolicy: running a drain on the broker thread would block it on the socket,
+        // so a rejected session is closed instead (see OutboundBufferingSession)
+        executor.initialize();
+        return executor;
+    }
+
+    // One ordered lane per conversation: sends and their side effects stay in order while
+    // different conversations run in parallel. Lane work blocks on JDBC, hence 2 workers per core
+    @Bean(name = "conversationLaneExecutor", destroyMethod = "shutdown")
+    public LaneExecutor conversationLaneExecutor(@Value("${app.lanes.workers:0}") int workers,
+                                                 @Value("${app.lanes.capacity:256}") int capacity) {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors() * 2;
+        return new LaneExecutor("ConversationLane-", workerCount, capacity);
+    }
+
+    // Shared wheel for presence, typing and call timeouts; 100 ms ticks, 512 slots per revolution
+    @Bean(name = "timingWheel", destroyMethod = "stop")
+    public TimingWheel timingWheel() {
+        return new TimingWheel("TimingWheel", 100, 512);
+    }
+}
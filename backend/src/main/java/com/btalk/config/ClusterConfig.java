@@ -0,0 +1,65 @@
+package com.btalk.config;
+
+import com.btalk.websocket.cluster.ClusterBus;
+import com.btalk.websocket.cluster.LoopbackClusterBus;
+import com.btalk.websocket.cluster.TcpClusterRelay;
+import com.btalk.websocket.cluster.TcpRelayClusterBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Cross-node fan-out for the simple broker. {@code app.cluster.mode=loopback}
+ * (default) keeps a single node self-contained; {@code tcp} connects every
+ * node to a relay, which one node can host itself with
+ * {@code app.cluster.relay.embedded=true}.
+ */
+@Configuration
+@Slf4j
+public class ClusterConfig {
+
+    @Value("${app.cluster.node-id:}")
+    private String nodeId;
+
+    private String resolveNodeId() {
+        return nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.cluster.mode", havingValue = "loopback", matchIfMissing = true)
+    public ClusterBus loopbackClusterBus(@Value("${app.cluster.loopback-group:default}") String group) {
+        return new LoopbackClusterBus(group, resolveNodeId());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.cluster.mode", havingValue = "tcp")
+    public ClusterBus tcpRelayClusterBus(@Value("${app.cluster.relay.host:localhost}") String host,
+                                         @Value("${app.cluster.relay.port:7400}") int port,
+                                         @Value("${app.cluster.relay.send-queue-capacity:10000}") int sendQueueCapacity,
+                                         @Value("${app.cluster.relay.write-timeout-ms:5000}") long writeTimeoutMs,
+                                         ObjectMapper objectMapper,
+                                         ObjectProvider<TcpClusterRelay> embeddedRelay) {
+        // Start the embedded relay first, if this node hosts it, so the first connect succeeds
+        embeddedRelay.getIfAvailable();
+        String id = resolveNodeId();
+        log.info("Cluster node {} using relay {}:{}", id, host, port);
+        return new TcpRelayClusterBus(id, host, port, objectMapper, sendQueueCapacity, writeTimeoutMs);
+    }
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = "app.cluster.relay.embedded", havingValue = "true")
+    public TcpClusterRelay tcpClusterRelay(@Value("${app.cluster.relay.port:7400}") int port,
+                                           @Value("${app.cluster.relay.send-queue-capacity:10000}") int sendQueueCapacity,
+                                           @Value("${app.cluster.relay.write-timeout-ms:5000}") long writeTimeoutMs) throws IOException {
+        TcpClusterRelay relay = new TcpClusterRelay(port, sendQueueCapacity, writeTimeoutMs);
+        relay.start();
+        return relay;
+    }
+}
@@ -0,0 +1,36 @@
+package com.btalk.config;
+
+import com.btalk.utils.ConcurrencyLimitedDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@Slf4j
+public class DataSourceLimitConfig {
+
+    // Only wraps the DataSource in virtual mode; the platform pools already bound JDBC concurrency
+    @Bean
+    public static BeanPostProcessor dataSourceLimitPostProcessor(
+            ObjectProvider<ExecutionMode> executionMode,
+            @Value("${app.execution.db-permits:${spring.datasource.hikari.maximum-pool-size:10}}") int dbPermits,
+            @Value("${app.execution.db-acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource
+                        && !(bean instanceof ConcurrencyLimitedDataSource)
+                        && executionMode.getObject().isVirtualThreads()) {
+                    log.info("Limiting DataSource {} to {} concurrent connections", beanName, dbPermits);
+                    return new ConcurrencyLimitedDataSource(dataSource, dbPermits, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.btalk.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Chooses between the fixed platform thread pools and virtual threads for the
+ * async executors and the STOMP client channels. Virtual threads need a Java 21
+ * runtime; on older runtimes the setting is ignored with a warning.
+ */
+@Component
+@Slf4j
+public class ExecutionMode {
+
+    private final boolean virtualThreads;
+    private final long terminationTimeoutMs;
+
+    public ExecutionMode(@Value("${app.execution.virtual-threads:false}") boolean virtualThreadsRequested,
+                         @Value("${app.drain.executor-await-ms:10000}") long terminationTimeoutMs) {
+        this.terminationTimeoutMs = terminationTimeoutMs;
+        boolean supported = Runtime.version().feature() >= 21;
+        if (virtualThreadsRequested && !supported) {
+            log.warn("app.execution.virtual-threads is enabled but Java {} has no virtual threads; using platform thread pools",
+                    Runtime.version().feature());
+        }
+        this.virtualThreads = virtualThreadsRequested && supported;
+        log.info("Execution mode: {} threads", virtualThreads ? "virtual" : "platform");
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * One virtual thread per task. A positive limit caps how many run at once
+     * (the submitter waits), for resources that are not protected elsewhere.
+     * Closing the executor waits for running tasks, like the platform pools.
+     */
+    public Executor newVirtualExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(terminationTimeoutMs);
+        if (concurrencyLimit > 0) {
+            executor.setConcurrencyLimit(concurrencyLimit);
+        }
+        return executor;
+    }
+}
@@ -5,12 +5,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -38,6 +41,14 @@ public class SecurityConfig {
     @Value("#{'${cors.allowed-origins}'.split(',')}")
     private List<String> allowedOrigins;
 
+    @Value("${app.websocket.native.endpoint:/ws-native}")
+    private String nativeWebSocketEndpoint;
+
+    // Accounts allowed to read operational endpoints such as per-session WebSocket stats
+    // and to broadcast announcements
+    @Value("#{'${app.admin.emails:}'.split(',')}")
+    private List<String> adminEmails;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -48,6 +59,14 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/files/**").permitAll()
                 .requestMatchers("/ws/**").permitAll()
+                .requestMatchers(nativeWebSocketEndpoint).permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Exposes every session's user and session id, so admins only
+                .requestMatchers("/api/websocket/**").access((authentication, context) ->
+                        new AuthorizationDecision(isAdmin(authentication.get())))
+                // Reaches every online user and can write a notification row per user
+                .requestMatchers(HttpMethod.POST, "/api/announcements").access((authentication, context) ->
+                        new AuthorizationDecision(isAdmin(authentication.get())))
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
@@ -59,7 +78,15 @@ public class SecurityConfig {
         return http.build();
     }
 
-       
+    private boolean isAdmin(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return false;
+        }
+        String email = authentication.getName();
+        return adminEmails.stream().map(String::trim).anyMatch(admin -> !admin.isEmpty() && admin.equals(email));
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
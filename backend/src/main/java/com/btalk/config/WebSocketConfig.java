@@ -2,15 +2,30 @@ package com.btalk.config;
 
 import com.btalk.security.AuthChannelInterceptorAdapter;
 import com.btalk.security.CustomHandshakeHandler;
-import com.btalk.utils.JwtTokenUtils;
+import com.btalk.security.DestinationAuthorizationInterceptor;
+import com.btalk.security.WebSocketTokenVerifier;
+import com.btalk.websocket.CallPriorityLanes;
+import com.btalk.websocket.DrainCoordinator;
+import com.btalk.websocket.OutboundBackpressureDecoratorFactory;
+import com.btalk.websocket.PayloadFormatInterceptor;
+import com.btalk.websocket.PresenceActivityInterceptor;
+import com.btalk.websocket.WebSocketMetrics;
+import com.btalk.websocket.WebSocketSessionTracker;
+import com.btalk.websocket.cluster.ClusterBrokerInterceptor;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Bean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.concurrent.Executor;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -18,25 +33,120 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final AuthChannelInterceptorAdapter authChannelInterceptorAdapter;
-    private final JwtTokenUtils jwtTokenUtils;
+    private final WebSocketTokenVerifier webSocketTokenVerifier;
+    private final WebSocketSessionTracker webSocketSessionTracker;
+    private final OutboundBackpressureDecoratorFactory outboundBackpressureDecoratorFactory;
+    private final CallPriorityLanes callPriorityLanes;
+    private final PayloadFormatInterceptor payloadFormatInterceptor;
+    private final WebSocketMetrics webSocketMetrics;
+    private final DrainCoordinator drainCoordinator;
+
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${app.websocket.native.endpoint:/ws-native}")
+    private String nativeEndpoint;
+
+    @Value("${app.websocket.native.permessage-deflate:true}")
+    private boolean nativePerMessageDeflate;
+
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+    private PresenceActivityInterceptor presenceActivityInterceptor;
+    private ClusterBrokerInterceptor clusterBrokerInterceptor;
+    private DestinationAuthorizationInterceptor destinationAuthorizationInterceptor;
+
+    // These depend on beans created by the broker configuration itself, so they
+    // are injected lazily to avoid a cycle with this configurer
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
+    @Autowired
+    public void setPresenceActivityInterceptor(@Lazy PresenceActivityInterceptor presenceActivityInterceptor) {
+        this.presenceActivityInterceptor = presenceActivityInterceptor;
+    }
+
+    @Autowired
+    public void setDestinationAuthorizationInterceptor(@Lazy DestinationAuthorizationInterceptor destinationAuthorizationInterceptor) {
+        this.destinationAuthorizationInterceptor = destinationAuthorizationInterceptor;
+    }
+
+    @Autowired
+    public void setClusterBrokerInterceptor(@Lazy ClusterBrokerInterceptor clusterBrokerInterceptor) {
+        this.clusterBrokerInterceptor = clusterBrokerInterceptor;
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        // Heartbeats let the broker drop half-open connections that stopped sending frames
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+        // Everything published to the broker is timestamped for the latency metric
+        // and also offered to the other nodes
+        config.configureBrokerChannel().interceptors(webSocketMetrics.getBrokerInterceptor(), clusterBrokerInterceptor);
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
+        // Frames for one session leave in the order the broker published them
+        config.setPreservePublishOrder(true);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Frames from one session reach the handlers in the order they arrived; handlers
+        // that do real work hand it to the conversation lanes, so this serializes little
+        registry.setPreserveReceiveOrder(true);
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
-                .setHandshakeHandler(new CustomHandshakeHandler(jwtTokenUtils))
+                .setHandshakeHandler(new CustomHandshakeHandler(webSocketTokenVerifier))
+                .addInterceptors(drainCoordinator)
                 .withSockJS();
+        // Plain WebSocket for clients that do not need the SockJS fallbacks: no SockJS
+        // framing, binary frames allowed, and optional permessage-deflate
+        registry.addEndpoint(nativeEndpoint)
+                .setAllowedOriginPatterns("*")
+                .setHandshakeHandler(new CustomHandshakeHandler(webSocketTokenVerifier, nativePerMessageDeflate))
+                .addInterceptors(drainCoordinator);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(authChannelInterceptorAdapter);
+        // Metrics see every frame, including refused ones; authentication comes before
+        // authorization, which needs the principal it sets on CONNECT
+        registration.interceptors(webSocketMetrics.getInboundInterceptor(), authChannelInterceptorAdapter,
+                destinationAuthorizationInterceptor, presenceActivityInterceptor);
+        // Call signaling gets its own threads so chat bursts never delay call setup
+        Executor executor = callPriorityLanes.inboundExecutor();
+        if (executor != null) {
+            registration.executor(executor);
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // JSON bodies are re-encoded for sessions that negotiated CBOR or Smile at CONNECT
+        // Metrics run last so byte counts reflect the format actually sent
+        registration.interceptors(payloadFormatInterceptor, webSocketMetrics.getOutboundInterceptor());
+        Executor executor = callPriorityLanes.outboundExecutor();
+        if (executor != null) {
+            registration.executor(executor);
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // The outbound buffering decorator is outermost and never blocks, so Spring's own
+        // per-session buffer stays empty; its limits are only a backstop
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .addDecoratorFactory(webSocketSessionTracker)
+                .addDecoratorFactory(outboundBackpressureDecoratorFactory);
     }
 } 
\ No newline at end of file
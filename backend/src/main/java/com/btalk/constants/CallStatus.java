@@ -1,5 +1,5 @@
 package com.btalk.constants;
 
 public enum CallStatus {
-	RINGING,ONGOING,REJECTED,ENDED
+	RINGING,ONGOING,REJECTED,ENDED,MISSED
 }
@@ -1,5 +1,5 @@
 package com.btalk.constants;
 
 public enum MessageType {
-    TEXT, MEDIA
+    TEXT, MEDIA, CALL
 }
@@ -0,0 +1,77 @@
+package com.btalk.controller;
+
+import com.btalk.dto.AnnouncementDto;
+import com.btalk.dto.request.AnnouncementRequest;
+import com.btalk.dto.response.ApiResponse;
+import com.btalk.entity.User;
+import com.btalk.service.AnnouncementService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/announcements")
+@RequiredArgsConstructor
+@Slf4j
+public class AnnouncementController {
+
+    private final AnnouncementService announcementService;
+
+    @PostMapping
+    public ApiResponse<AnnouncementDto> broadcast(Authentication authentication,
+                                                  @Valid @RequestBody AnnouncementRequest request) {
+        try {
+            AnnouncementDto announcement = announcementService.broadcast(extractUserId(authentication), request);
+            return ApiResponse.success("Announcement broadcast successfully", announcement);
+        } catch (Exception e) {
+            log.error("Error broadcasting announcement: {}", e.getMessage(), e);
+            return ApiResponse.error("Failed to broadcast announcement: " + e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ApiResponse<List<AnnouncementDto>> getAnnouncements(Authentication authentication,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<AnnouncementDto> announcements = announcementService.getAnnouncements(
+                    extractUserId(authentication), Math.max(1, Math.min(limit, 100)));
+            return ApiResponse.success("Announcements retrieved successfully", announcements);
+        } catch (Exception e) {
+            log.error("Error getting announcements: {}", e.getMessage(), e);
+            return ApiResponse.error("Failed to get announcements: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/unread-count")
+    public ApiResponse<Long> getUnreadCount(Authentication authentication) {
+        try {
+            return ApiResponse.success("Unread count retrieved successfully",
+                    announcementService.getUnreadCount(extractUserId(authentication)));
+        } catch (Exception e) {
+            log.error("Error getting announcement unread count: {}", e.getMessage(), e);
+            return ApiResponse.error("Failed to get unread count: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/{announcementId}/read")
+    public ApiResponse<Void> markAsRead(Authentication authentication, @PathVariable String announcementId) {
+        try {
+            announcementService.markAsRead(announcementId, extractUserId(authentication));
+            return ApiResponse.success("Announcement marked as read", null);
+        } catch (Exception e) {
+            log.error("Error marking announcement as read: {}", e.getMessage(), e);
+            return ApiResponse.error("Failed to mark announcement as read: " + e.getMessage());
+        }
+    }
+
+    private String extractUserId(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            throw new IllegalArgumentException("Authentication or principal is null");
+        }
+        return ((User) authentication.getPrincipal()).getUserId();
+    }
+}
@@ -1,7 +1,9 @@
 package com.btalk.controller;
 
+import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -11,11 +13,15 @@ import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 import com.btalk.dto.MessageDto;
 import com.btalk.dto.NotificationDto;
+import com.btalk.dto.request.TypingRequest;
 import com.btalk.dto.response.ApiResponse;
 import com.btalk.entity.Participant;
 import com.btalk.repository.ParticipantRepository;
 import com.btalk.service.ConversationService;
 import com.btalk.service.MessageService;
+import com.btalk.utils.LaneExecutor;
+import com.btalk.websocket.EncodedMessageSender;
+import com.btalk.websocket.TypingTracker;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,19 +33,42 @@ public class ChatController {
     private final MessageService messageService;
     private final ParticipantRepository participantRepository;
     private final ConversationService conversationService;
+    private final TypingTracker typingTracker;
+    private final LaneExecutor conversationLaneExecutor;
+    private final EncodedMessageSender encodedMessageSender;
 
     public ChatController(SimpMessagingTemplate messagingTemplate,
                           MessageService messageService,
                           ParticipantRepository participantRepository,
-                          ConversationService conversationService) {
+                          ConversationService conversationService,
+                          TypingTracker typingTracker,
+                          LaneExecutor conversationLaneExecutor,
+                          EncodedMessageSender encodedMessageSender) {
         this.messagingTemplate = messagingTemplate;
         this.messageService = messageService;
         this.participantRepository = participantRepository;
         this.conversationService = conversationService;
+        this.typingTracker = typingTracker;
+        this.conversationLaneExecutor = conversationLaneExecutor;
+        this.encodedMessageSender = encodedMessageSender;
     }
 
+    // Persisting and broadcasting run on the conversation's lane, so sends to one
+    // conversation are stored and delivered in the order they were received
     @MessageMapping("/chat/{conversationId}/send")
     public void sendMessage(@DestinationVariable String conversationId, @Payload MessageDto messageDto) {
+        try {
+            conversationLaneExecutor.execute(conversationId, () -> persistAndBroadcast(conversationId, messageDto));
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected message for busy conversation {}: {}", conversationId, e.getMessage());
+            messagingTemplate.convertAndSend(
+                "/user/" + messageDto.getSenderId() + "/queue/errors",
+                ApiResponse.error("Conversation is busy, please retry sending the message")
+            );
+        }
+    }
+
+    private void persistAndBroadcast(String conversationId, MessageDto messageDto) {
         try {
             // Convert MessageDto to MessageRequest
             com.btalk.dto.request.MessageRequest request = com.btalk.dto.request.MessageRequest.builder()
@@ -50,7 +79,7 @@ public class ChatController {
             MessageDto savedMessage = messageService.sendMessage(conversationId, messageDto.getSenderId(), request);
             List<String> participantIds = participantRepository.findUserIdsByConversationId(conversationId);
 
-            messagingTemplate.convertAndSend(
+            encodedMessageSender.send(
                 "/topic/conversation/" + conversationId + "/messages",
                 ApiResponse.success("New message received", Map.of(
                     "eventType", "NEW_MESSAGE",
@@ -58,15 +87,16 @@ public class ChatController {
                 ))
             );
 
-            for (String participantId : participantIds) {
-            	messagingTemplate.convertAndSend(
-            		    "/user/" + participantId + "/queue/conversation-updates",
-            		    ApiResponse.success("Conversation updated", Map.of(
-            		        "eventType", "CONVERSATION_UPDATED",
-            		        "conversation", conversationService.getConversation(conversationId)
-            		    ))
-            		);
-            }
+            // The update is the same for every participant: load and encode it once
+            encodedMessageSender.send(
+                participantIds.stream()
+                    .map(participantId -> "/user/" + participantId + "/queue/conversation-updates")
+                    .toList(),
+                ApiResponse.success("Conversation updated", Map.of(
+                    "eventType", "CONVERSATION_UPDATED",
+                    "conversation", conversationService.getConversation(conversationId)
+                ))
+            );
         } catch (Exception e) {
             log.error("Failed to send message", e);
             messagingTemplate.convertAndSend(
@@ -76,8 +106,22 @@ public class ChatController {
         }
     }
 
+    // In-memory only: no MessageService call and no database write
+    @MessageMapping("/chat/{conversationId}/typing")
+    public void typing(@DestinationVariable String conversationId, @Payload TypingRequest request, Principal principal) {
+        if (principal == null) {
+            return;
+        }
+        typingTracker.onTyping(conversationId, principal.getName(), request.isTyping());
+    }
+
     @MessageMapping("/chat/{conversationId}/read")
     public void markMessagesAsRead(@DestinationVariable String conversationId, @Payload String userId) {
-        messageService.markMessagesAsRead(conversationId, userId);
+        try {
+            // Same lane as sends, so a read never overtakes a message received before it
+            conversationLaneExecutor.execute(conversationId, () -> messageService.markMessagesAsRead(conversationId, userId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped read marker for busy conversation {}: {}", conversationId, e.getMessage());
+        }
     }
 }
@@ -1,8 +1,12 @@
 package com.btalk.controller;
 
+import com.btalk.dto.NotificationDigestDto;
 import com.btalk.dto.NotificationDto;
+import com.btalk.dto.NotificationFeedDto;
+import com.btalk.dto.NotificationPreferencesDto;
 
 import com.btalk.dto.NotificationRequest;
+import com.btalk.service.NotificationPreferenceService;
 import com.btalk.service.NotificationService;
 import com.btalk.service.impl.NotificationServiceImpl;
 import com.btalk.dto.response.ApiResponse;
@@ -13,13 +17,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import com.btalk.repository.UserRepository;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 
+import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -28,6 +37,7 @@ import java.util.List;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationPreferenceService notificationPreferenceService;
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
 
@@ -55,6 +65,31 @@ public class NotificationController {
         }
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<NotificationFeedDto>> getNotificationFeed(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            String userId = extractUserIdFromAuthentication(authentication);
+            int pageSize = Math.max(1, Math.min(size, 100));
+            NotificationFeedDto feed = notificationService.getNotificationFeed(userId, before, beforeId, pageSize);
+            
+            return ResponseEntity.ok(ApiResponse.<NotificationFeedDto>builder()
+                    .success(true)
+                    .message("Notifications retrieved successfully")
+                    .data(feed)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting notification feed: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<NotificationFeedDto>builder()
+                    .success(false)
+                    .message("Failed to get notifications: " + e.getMessage())
+                    .build());
+        }
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<ApiResponse<List<NotificationDto>>> getUnreadNotifications(Authentication authentication) {
         try {
@@ -175,6 +210,82 @@ public class NotificationController {
         }
     }
 
+    @GetMapping("/preferences")
+    public ResponseEntity<ApiResponse<NotificationPreferencesDto>> getPreferences(Authentication authentication) {
+        try {
+            String userId = extractUserIdFromAuthentication(authentication);
+            NotificationPreferencesDto preferences = notificationPreferenceService.getPreferences(userId);
+            
+            return ResponseEntity.ok(ApiResponse.<NotificationPreferencesDto>builder()
+                    .success(true)
+                    .message("Notification preferences retrieved successfully")
+                    .data(preferences)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting notification preferences: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<NotificationPreferencesDto>builder()
+                    .success(false)
+                    .message("Failed to get notification preferences: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    @PutMapping("/preferences/types")
+    public ResponseEntity<ApiResponse<NotificationPreferencesDto>> updateDisabledTypes(
+            Authentication authentication,
+            @RequestBody Set<NotificationType> disabledTypes) {
+        try {
+            String userId = extractUserIdFromAuthentication(authentication);
+            NotificationPreferencesDto preferences = notificationPreferenceService.updateDisabledTypes(userId, disabledTypes);
+            
+            return ResponseEntity.ok(ApiResponse.<NotificationPreferencesDto>builder()
+                    .success(true)
+                    .message("Notification preferences updated successfully")
+                    .data(preferences)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error updating notification preferences: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<NotificationPreferencesDto>builder()
+                    .success(false)
+                    .message("Failed to update notification preferences: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    @PutMapping("/preferences/conversations/{conversationId}/mute")
+    public ResponseEntity<ApiResponse<Void>> setConversationMuted(
+            Authentication authentication,
+            @PathVariable String conversationId,
+            @RequestParam boolean muted) {
+        try {
+            String userId = extractUserIdFromAuthentication(authentication);
+            notificationPreferenceService.setConversationMuted(userId, conversationId, muted);
+            
+            return ResponseEntity.ok(ApiResponse.<Void>builder()
+                    .success(true)
+                    .message(muted ? "Conversation muted" : "Conversation unmuted")
+                    .build());
+        } catch (Exception e) {
+            log.error("Error updating conversation mute: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<Void>builder()
+                    .success(false)
+                    .message("Failed to update conversation mute: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    // Clients subscribe to /app/notifications/digest right after (re)connecting.
+    // The reply goes straight to the subscribing session; nothing is sent when
+    // no notifications were collected while the user was offline and none are
+    // unread. A digest without entries means "reload the feed".
+    @SubscribeMapping("/notifications/digest")
+    public NotificationDigestDto subscribeNotificationDigest(Principal principal) {
+        if (principal == null) {
+            return null;
+        }
+        return notificationService.takeNotificationDigest(principal.getName());
+    }
+
     @PostMapping("/send")
     public ResponseEntity<ApiResponse<NotificationDto>> sendNotification(@RequestBody NotificationRequest request) {
         try {
@@ -0,0 +1,41 @@
+package com.btalk.controller;
+
+import com.btalk.dto.PresenceDto;
+import com.btalk.dto.request.PresenceWatchRequest;
+import com.btalk.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.List;
+
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    // Replies with a snapshot for the requested users; afterwards only changes
+    // for those users are pushed to the same session on /user/queue/presence
+    @MessageMapping("/presence/watch")
+    @SendToUser(destinations = "/queue/presence", broadcast = false)
+    public List<PresenceDto> watchPresence(@Payload PresenceWatchRequest request,
+                                           SimpMessageHeaderAccessor headerAccessor,
+                                           Principal principal) {
+        if (principal == null || request.getUserIds() == null) {
+            return List.of();
+        }
+        return presenceService.watchPresence(headerAccessor.getSessionId(), principal.getName(), request.getUserIds());
+    }
+
+    @MessageMapping("/presence/unwatch")
+    public void unwatchPresence(@Payload PresenceWatchRequest request, SimpMessageHeaderAccessor headerAccessor) {
+        presenceService.unwatchPresence(headerAccessor.getSessionId(), request.getUserIds());
+    }
+}
@@ -1,8 +1,11 @@
 package com.btalk.controller;
 
+import com.btalk.dto.PresenceDto;
 import com.btalk.dto.UserDto;
 import com.btalk.dto.response.ApiResponse;
+import com.btalk.service.PresenceService;
 import com.btalk.service.UserService;
+import com.btalk.websocket.PresenceWatchRegistry;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -12,9 +15,11 @@ import java.util.UUID;
 @RequestMapping("/api/users")
 public class UserController {
     private final UserService userService;
+    private final PresenceService presenceService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, PresenceService presenceService) {
         this.userService = userService;
+        this.presenceService = presenceService;
     }
 
     @GetMapping("/search")
@@ -36,4 +41,19 @@ public class UserController {
             return ApiResponse.error("Failed to get users: " + e.getMessage());
         }
     }
+
+    // POST so that a few hundred ids fit in the body rather than the URL
+    @PostMapping("/presence")
+    public ApiResponse<List<PresenceDto>> getPresence(@RequestBody List<String> userIds) {
+        try {
+            if (userIds.size() > PresenceWatchRegistry.MAX_WATCHED_USERS_PER_SESSION) {
+                return ApiResponse.error("Too many user ids, at most "
+                        + PresenceWatchRegistry.MAX_WATCHED_USERS_PER_SESSION + " per request");
+            }
+            List<PresenceDto> presence = presenceService.getPresence(userIds);
+            return ApiResponse.success("Presence retrieved successfully", presence);
+        } catch (Exception e) {
+            return ApiResponse.error("Failed to get presence: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
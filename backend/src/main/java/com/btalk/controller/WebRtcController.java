@@ -7,13 +7,18 @@ import com.btalk.dto.CallSignal;
 import com.btalk.dto.request.CallRequest;
 import com.btalk.dto.response.ApiResponse;
 import com.btalk.service.CallService;
+import com.btalk.websocket.CallSignalBatcher;
+import com.btalk.websocket.ConversationMembershipCache;
+
+import java.security.Principal;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -24,12 +29,15 @@ import org.springframework.web.bind.annotation.RestController;
 public class WebRtcController {
 
     private final CallService callService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ConversationMembershipCache membershipCache;
+    private final CallSignalBatcher callSignalBatcher;
     private static final Logger logger = LoggerFactory.getLogger(WebRtcController.class);
 
-    public WebRtcController(SimpMessagingTemplate messagingTemplate, CallService callService) {
-        this.messagingTemplate = messagingTemplate;
+    public WebRtcController(CallService callService, ConversationMembershipCache membershipCache,
+                            CallSignalBatcher callSignalBatcher) {
         this.callService = callService;
+        this.membershipCache = membershipCache;
+        this.callSignalBatcher = callSignalBatcher;
     }
 
     @PostMapping("/start")
@@ -81,10 +89,17 @@ public class WebRtcController {
         }
     }
 
+    // Lets a client show "busy" before ringing; the check is in memory
+    @GetMapping("/busy/{userId}")
+    public ApiResponse<Boolean> isUserBusy(@PathVariable String userId) {
+        return ApiResponse.success(callService.isUserBusy(userId));
+    }
+
     @MessageMapping("/call/private/signal")
     public void handlePrivateSignal(@Payload CallSignal signal) {
         try {
-            logger.info("Received private signal: type={}, callerId={}, recipientId={}, callId={}", 
+            // Dozens of candidates per call: keep per-signal logging at debug
+            logger.debug("Received private signal: type={}, callerId={}, recipientId={}, callId={}",
                 signal.getType(), signal.getCallerId(), signal.getRecipientId(), signal.getCallId());
             
             if (signal.getRecipientId() == null) {
@@ -98,28 +113,29 @@ public class WebRtcController {
                 return;
             }
             
-            logger.info("Forwarding private signal to user {} for call {}", signal.getRecipientId(), signal.getCallId());
-            messagingTemplate.convertAndSend(
-                "/user/" + signal.getRecipientId() + "/queue/call/signals",
-                signal
-            );
-            
-            logger.info("Private signal forwarded successfully");
+            // Candidates may be batched; OFFER and ANSWER go out immediately
+            callSignalBatcher.forward("/user/" + signal.getRecipientId() + "/queue/call/signals", signal);
         } catch (Exception e) {
             logger.error("Error handling private signal", e);
         }
     }
 
     @MessageMapping("/call/group/signal")
-    public void handleGroupSignal(@Payload CallSignal signal) {
+    public void handleGroupSignal(@Payload CallSignal signal, Principal principal) {
         try {
-            logger.info("Received group signal: type={}, conversationId={}, callId={}", 
+            logger.debug("Received group signal: type={}, conversationId={}, callId={}",
                 signal.getType(), signal.getConversationId(), signal.getCallId());
             
             if (signal.getConversationId() == null) {
                 logger.warn("Received group signal without conversation ID");
                 return;
             }
+
+            // The conversation is in the payload, so the destination check cannot cover it
+            if (principal == null || !membershipCache.isParticipant(principal.getName(), signal.getConversationId())) {
+                logger.warn("Dropping group signal from non-participant of conversation {}", signal.getConversationId());
+                return;
+            }
             
             // Validate signal type
             if (signal.getType() == null) {
@@ -127,13 +143,7 @@ public class WebRtcController {
                 return;
             }
             
-            logger.info("Broadcasting group signal to conversation {} for call {}", signal.getConversationId(), signal.getCallId());
-            messagingTemplate.convertAndSend(
-                "/topic/call/" + signal.getConversationId() + "/signals",
-                signal
-            );
-            
-            logger.info("Group signal broadcasted successfully");
+            callSignalBatcher.forward("/topic/call/" + signal.getConversationId() + "/signals", signal);
         } catch (Exception e) {
             logger.error("Error handling group signal", e);
         }
@@ -0,0 +1,59 @@
+package com.btalk.controller;
+
+import com.btalk.dto.EncodingStatsDto;
+import com.btalk.dto.OutboundSessionStatsDto;
+import com.btalk.dto.response.ApiResponse;
+import com.btalk.websocket.OutboundBackpressureDecoratorFactory;
+import com.btalk.websocket.PayloadEncoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/websocket")
+@RequiredArgsConstructor
+@Slf4j
+public class WebSocketStatsController {
+
+    private final OutboundBackpressureDecoratorFactory outboundBackpressureDecoratorFactory;
+    private final PayloadEncoder payloadEncoder;
+
+    // Per-session outbound queue depth and drop counts, deepest queues first
+    @GetMapping("/outbound")
+    public ApiResponse<List<OutboundSessionStatsDto>> getOutboundStats(@RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<OutboundSessionStatsDto> stats = outboundBackpressureDecoratorFactory.getSessionStats();
+            return ApiResponse.success("Outbound stats retrieved successfully",
+                    stats.subList(0, Math.min(Math.max(limit, 0), stats.size())));
+        } catch (Exception e) {
+            log.error("Error getting outbound stats: {}", e.getMessage(), e);
+            return ApiResponse.error("Failed to get outbound stats: " + e.getMessage());
+        }
+    }
+
+    // Serialization cost of pre-encoded broadcasts, in total and per delivered message
+    @GetMapping("/encoding")
+    public ApiResponse<EncodingStatsDto> getEncodingStats() {
+        try {
+            long payloads = payloadEncoder.getEncodedPayloads();
+            long deliveries = payloadEncoder.getDeliveries();
+            double encodeMicros = payloadEncoder.getEncodeNanos() / 1000.0;
+            EncodingStatsDto stats = EncodingStatsDto.builder()
+                    .encodedPayloads(payloads)
+                    .deliveries(deliveries)
+                    .encodeMicros((long) encodeMicros)
+                    .encodeMicrosPerPayload(payloads > 0 ? encodeMicros / payloads : 0)
+                    .encodeMicrosPerDelivery(deliveries > 0 ? encodeMicros / deliveries : 0)
+                    .build();
+            return ApiResponse.success("Encoding stats retrieved successfully", stats);
+        } catch (Exception e) {
+            log.error("Error getting encoding stats: {}", e.getMessage(), e);
+            return ApiResponse.error("Failed to get encoding stats: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.btalk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementDto {
+    private String announcementId;
+    private String senderId;
+    private String title;
+    private String message;
+    private String data;
+    private Boolean isRead;
+    private LocalDateTime createdAt;
+}
@@ -12,5 +12,6 @@ public class CallSignal {
     private List<String> participants; // For group calls (changed from Set to List to match frontend)
     private SignalType type; // "offer", "answer", "candidate", "ringing", "hangup"
     private Object payload; // SDP offer/answer or ICE candidate
+    private List<Object> candidates; // Batched ICE candidates, payload is then null
     private String callId; // Add callId field to match frontend
 }
\ No newline at end of file
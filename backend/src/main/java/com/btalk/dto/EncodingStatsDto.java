@@ -0,0 +1,18 @@
+package com.btalk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EncodingStatsDto {
+    private long encodedPayloads;
+    private long deliveries;
+    private long encodeMicros;
+    private double encodeMicrosPerPayload;
+    private double encodeMicrosPerDelivery;
+}
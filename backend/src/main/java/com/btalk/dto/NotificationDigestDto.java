@@ -0,0 +1,36 @@
+package com.btalk.dto;
+
+import com.btalk.constants.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDigestDto {
+    private List<Entry> entries;
+    private int totalCount;
+    private Long unreadCount;
+    private LocalDateTime since;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private NotificationType type;
+        private String conversationId;
+        private int count;
+        private String latestTitle;
+        private String latestMessage;
+        private String latestSenderId;
+        private String latestSenderName;
+        private LocalDateTime latestAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.btalk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationFeedDto {
+    private List<NotificationDto> notifications;
+    private boolean hasMore;
+    // Cursor for the next page: pass back as before/beforeId
+    private LocalDateTime nextBefore;
+    private String nextBeforeId;
+}
@@ -0,0 +1,18 @@
+package com.btalk.dto;
+
+import com.btalk.constants.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPreferencesDto {
+    private Set<NotificationType> disabledTypes;
+    private Set<String> mutedConversationIds;
+}
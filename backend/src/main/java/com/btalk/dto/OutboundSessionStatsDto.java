@@ -0,0 +1,21 @@
+package com.btalk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboundSessionStatsDto {
+    private String sessionId;
+    private String userId;
+    private int queuedFrames;
+    private long queuedBytes;
+    private long sentFrames;
+    private long droppedFrames;
+    private long coalescedFrames;
+    private long sendInProgressMs;
+}
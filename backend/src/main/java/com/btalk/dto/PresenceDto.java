@@ -0,0 +1,24 @@
+package com.btalk.dto;
+
+import com.btalk.constants.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDto {
+    private String userId;
+    private UserStatus status;
+    private LocalDateTime lastSeenAt;
+
+    // JPQL projection for users that are not in the in-memory presence registry
+    public PresenceDto(String userId, LocalDateTime lastSeenAt) {
+        this(userId, UserStatus.OFFLINE, lastSeenAt);
+    }
+}
@@ -0,0 +1,16 @@
+package com.btalk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingDto {
+    private String conversationId;
+    // Everyone currently typing in the conversation, not just the user who changed
+    private Set<String> typingUserIds;
+}
@@ -0,0 +1,25 @@
+package com.btalk.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementRequest {
+    @NotBlank(message = "Title is required")
+    private String title;
+    
+    @NotBlank(message = "Message is required")
+    private String message;
+    
+    private String data;
+    
+    // Also write a per-user Notification row, streamed through the users table in chunks
+    private boolean materialize;
+}
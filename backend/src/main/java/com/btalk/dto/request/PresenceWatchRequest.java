@@ -0,0 +1,10 @@
+package com.btalk.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PresenceWatchRequest {
+    private List<String> userIds;
+}
@@ -0,0 +1,8 @@
+package com.btalk.dto.request;
+
+import lombok.Data;
+
+@Data
+public class TypingRequest {
+    private boolean typing = true;
+}
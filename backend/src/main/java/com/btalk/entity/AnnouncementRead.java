@@ -0,0 +1,26 @@
+package com.btalk.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "announcement_reads", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"announcement_id", "user_id"})
+})
+@Data
+public class AnnouncementRead {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "announcement_id", nullable = false, length = 36)
+    private String announcementId;
+
+    @Column(name = "user_id", nullable = false, length = 36)
+    private String userId;
+
+    @Column(nullable = false)
+    private LocalDateTime readAt;
+}
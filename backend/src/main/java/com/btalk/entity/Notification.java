@@ -14,7 +14,9 @@ import com.btalk.constants.NotificationType;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_recipient_deleted_created", columnList = "recipient_id, is_deleted, created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
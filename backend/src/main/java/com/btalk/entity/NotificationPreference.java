@@ -0,0 +1,33 @@
+package com.btalk.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "notification_preferences")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPreference {
+
+    @Id
+    @Column(name = "user_id", length = 36)
+    private String userId;
+
+    // One bit per NotificationType ordinal; a set bit means the type is disabled.
+    // New NotificationType constants must be appended to keep stored masks valid.
+    @Column(name = "disabled_types", nullable = false)
+    @Builder.Default
+    private Integer disabledTypes = 0;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
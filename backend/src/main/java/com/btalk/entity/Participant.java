@@ -30,4 +30,8 @@ public class Participant {
     private LocalDateTime joinedAt;
 
     private LocalDateTime leftAt;
+
+    @Column(name = "notifications_muted")
+    @Builder.Default
+    private Boolean notificationsMuted = false;
 }
\ No newline at end of file
@@ -44,6 +44,9 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private UserStatus status = UserStatus.OFFLINE;
 
+    // Written in batches by PresenceRegistry, not on every frame
+    private LocalDateTime lastSeenAt;
+
     // Password reset fields
     private String resetToken;
     private LocalDateTime resetTokenExpiry;
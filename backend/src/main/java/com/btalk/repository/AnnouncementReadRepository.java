@@ -0,0 +1,18 @@
+package com.btalk.repository;
+
+import com.btalk.entity.AnnouncementRead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AnnouncementReadRepository extends JpaRepository<AnnouncementRead, String> {
+    boolean existsByAnnouncementIdAndUserId(String announcementId, String userId);
+
+    @Query("SELECT r.announcementId FROM AnnouncementRead r WHERE r.userId = :userId AND r.announcementId IN :announcementIds")
+    List<String> findReadAnnouncementIds(@Param("userId") String userId, @Param("announcementIds") Collection<String> announcementIds);
+}
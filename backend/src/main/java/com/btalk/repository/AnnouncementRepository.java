@@ -0,0 +1,21 @@
+package com.btalk.repository;
+
+import com.btalk.entity.Announcement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AnnouncementRepository extends JpaRepository<Announcement, String> {
+
+    @Query("SELECT a FROM Announcement a ORDER BY a.createdAt DESC")
+    List<Announcement> findLatest(Pageable pageable);
+
+    @Query("SELECT COUNT(a) FROM Announcement a WHERE NOT EXISTS " +
+           "(SELECT r FROM AnnouncementRead r WHERE r.announcementId = a.announcementId AND r.userId = :userId)")
+    Long countUnreadByUserId(@Param("userId") String userId);
+}
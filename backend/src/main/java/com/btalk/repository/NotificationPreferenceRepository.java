@@ -0,0 +1,9 @@
+package com.btalk.repository;
+
+import com.btalk.entity.NotificationPreference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, String> {
+}
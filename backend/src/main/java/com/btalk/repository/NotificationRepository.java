@@ -1,6 +1,7 @@
 package com.btalk.repository;
 
 import com.btalk.constants.NotificationType;
+import com.btalk.dto.NotificationDto;
 import com.btalk.entity.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,6 +20,27 @@ public interface NotificationRepository extends JpaRepository<Notification, Stri
     @Query("SELECT n FROM Notification n WHERE n.recipient.userId = :userId AND n.isDeleted = false ORDER BY n.createdAt DESC")
     Page<Notification> findByRecipientIdOrderByCreatedAtDesc(@Param("userId") String userId, Pageable pageable);
     
+    // Feed queries project straight into the DTO with the sender joined, so no
+    // COUNT query is issued and the lazy sender association is never touched.
+    // senderName carries the sender's username (email), as convertToDto does.
+    @Query("SELECT new com.btalk.dto.NotificationDto(n.notificationId, n.recipient.userId, s.userId, s.email, s.profilePhotoUrl, " +
+           "n.title, n.message, n.type, n.data, n.isRead, n.createdAt, n.readAt) " +
+           "FROM Notification n LEFT JOIN n.sender s " +
+           "WHERE n.recipient.userId = :userId AND n.isDeleted = false " +
+           "ORDER BY n.createdAt DESC, n.notificationId DESC")
+    List<NotificationDto> findFeedByRecipientId(@Param("userId") String userId, Pageable pageable);
+    
+    @Query("SELECT new com.btalk.dto.NotificationDto(n.notificationId, n.recipient.userId, s.userId, s.email, s.profilePhotoUrl, " +
+           "n.title, n.message, n.type, n.data, n.isRead, n.createdAt, n.readAt) " +
+           "FROM Notification n LEFT JOIN n.sender s " +
+           "WHERE n.recipient.userId = :userId AND n.isDeleted = false " +
+           "AND (n.createdAt < :before OR (n.createdAt = :before AND n.notificationId < :beforeId)) " +
+           "ORDER BY n.createdAt DESC, n.notificationId DESC")
+    List<NotificationDto> findFeedByRecipientIdBefore(@Param("userId") String userId,
+                                                      @Param("before") LocalDateTime before,
+                                                      @Param("beforeId") String beforeId,
+                                                      Pageable pageable);
+    
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient.userId = :userId AND n.isRead = false AND n.isDeleted = false")
     Long countUnreadByRecipientId(@Param("userId") String userId);
     
@@ -21,4 +21,14 @@ public interface ParticipantRepository extends JpaRepository<Participant, String
     
     @Query("SELECT p.userId FROM Participant p WHERE p.conversationId = :conversationId")
     List<String> findUserIdsByConversationId(@Param("conversationId") String conversationId);
+    
+    @Query("SELECT p.conversationId FROM Participant p WHERE p.userId = :userId")
+    List<String> findConversationIdsByUserId(@Param("userId") String userId);
+
+    @Query("SELECT p.conversationId FROM Participant p WHERE p.userId = :userId AND p.notificationsMuted = true")
+    List<String> findMutedConversationIdsByUserId(@Param("userId") String userId);
+    
+    @Modifying
+    @Query("UPDATE Participant p SET p.notificationsMuted = :muted WHERE p.conversationId = :conversationId AND p.userId = :userId")
+    int updateNotificationsMuted(@Param("conversationId") String conversationId, @Param("userId") String userId, @Param("muted") boolean muted);
 }
\ No newline at end of file
@@ -7,8 +7,10 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.btalk.constants.UserStatus;
+import com.btalk.dto.PresenceDto;
 import com.btalk.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,9 +27,26 @@ public interface UserRepository extends JpaRepository<User, String> {
     @Query("UPDATE User u SET u.status = :status WHERE u.userId = :userId")
     void updateUserStatus(@Param("userId") String userId, @Param("status") UserStatus status);
     
+    @Modifying
+    @Query("UPDATE User u SET u.status = :status WHERE u.userId IN :userIds")
+    int updateUserStatuses(@Param("userIds") Collection<String> userIds, @Param("status") UserStatus status);
+    
     @Query("SELECT u FROM User u WHERE u.userId IN :userIds")
     List<User> findAllByIds(@Param("userIds") List<String> userIds);
     
+    @Query("SELECT new com.btalk.dto.PresenceDto(u.userId, u.lastSeenAt) FROM User u WHERE u.userId IN :userIds")
+    List<PresenceDto> findOfflinePresenceByIds(@Param("userIds") Collection<String> userIds);
+    
+    // Keyset walk over the users table for bulk jobs, skipping users who
+    // disabled the given notification type bit in notification_preferences
+    @Query(value = "SELECT u.user_id FROM users u " +
+                   "LEFT JOIN notification_preferences p ON p.user_id = u.user_id " +
+                   "WHERE u.user_id > :afterId AND (p.disabled_types IS NULL OR (p.disabled_types & :typeBit) = 0) " +
+                   "ORDER BY u.user_id LIMIT :limit", nativeQuery = true)
+    List<String> findUserIdsAcceptingNotificationType(@Param("afterId") String afterId,
+                                                      @Param("typeBit") int typeBit,
+                                                      @Param("limit") int limit);
+    
     @Modifying
     @Query("UPDATE User u SET u.resetToken = :resetToken, u.resetTokenExpiry = :resetTokenExpiry WHERE u.email = :email")
     void updateResetToken(@Param("email") String email, @Param("resetToken") String resetToken, @Param("resetTokenExpiry") java.time.LocalDateTime resetTokenExpiry);
@@ -1,13 +1,9 @@
 package com.btalk.security;
 
-import com.btalk.entity.User;
-
-import com.btalk.repository.UserRepository;
-import com.btalk.utils.JwtTokenUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Optional;
+import java.util.Map;
 
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -25,46 +21,42 @@ import org.springframework.stereotype.Component;
 @Order(0)
 public class AuthChannelInterceptorAdapter implements ChannelInterceptor {
 
-    private final JwtTokenUtils jwtTokenUtil;
-    private final UserRepository userRepository;
+    private final WebSocketTokenVerifier tokenVerifier;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
 
         if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
-            log.info("Processing WebSocket CONNECT request");
-            String token = accessor.getFirstNativeHeader("Authorization");
-
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-                log.info("Token found, length: {}", token.length());
-
-                try {
-                    String email = jwtTokenUtil.extractUsername(token);
-                    log.info("Extracted email from token: {}", email);
-                    Optional<User> optionalUser = userRepository.findByEmail(email);
-
-                    if (optionalUser.isPresent()) {
-                        String userId = optionalUser.get().getUserId().toString();
+            Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+            Object verified = sessionAttributes != null
+                    ? sessionAttributes.get(WebSocketTokenVerifier.PRINCIPAL_ATTRIBUTE) : null;
+
+            if (verified instanceof StompPrincipal principal) {
+                // Already verified during the handshake
+                accessor.setUser(principal);
+                log.debug("WebSocket CONNECT for userId={} authenticated at handshake", principal.getName());
+                return message;
+            }
 
-                        // Set custom Principal here
-                        accessor.setUser(new StompPrincipal(userId.toString()));
+            String authorization = accessor.getFirstNativeHeader("Authorization");
+            if (authorization == null) {
+                log.warn("No valid Authorization header found in WebSocket CONNECT");
+                return message;
+            }
 
-                        log.info("WebSocket connected successfully for userId={}", userId);
-                    } else {
-                        log.warn("No user found for email: {}", email);
-                    }
-                } catch (Exception e) {
-                    log.error("Token parsing failed: {}", e.getMessage());
+            StompPrincipal principal = tokenVerifier.verifyHeader(authorization);
+            if (principal != null) {
+                accessor.setUser(principal);
+                if (sessionAttributes != null) {
+                    sessionAttributes.put(WebSocketTokenVerifier.PRINCIPAL_ATTRIBUTE, principal);
                 }
+                log.info("WebSocket connected successfully for userId={}", principal.getName());
             } else {
-                log.warn("No valid Authorization header found in WebSocket CONNECT");
+                log.warn("WebSocket CONNECT rejected: invalid or expired token");
             }
         }
 
         return message;
     }
-
-
 }
@@ -1,11 +1,9 @@
 package com.btalk.security;
 
-import com.btalk.utils.JwtTokenUtils;
-import io.jsonwebtoken.Claims;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
@@ -13,47 +11,51 @@ import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
-@RequiredArgsConstructor
 @Slf4j
 public class CustomHandshakeHandler extends DefaultHandshakeHandler {
 
-    private final JwtTokenUtils jwtTokenUtils;
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final WebSocketTokenVerifier tokenVerifier;
+    private final boolean perMessageDeflate;
+
+    public CustomHandshakeHandler(WebSocketTokenVerifier tokenVerifier) {
+        this(tokenVerifier, true);
+    }
+
+    public CustomHandshakeHandler(WebSocketTokenVerifier tokenVerifier, boolean perMessageDeflate) {
+        this.tokenVerifier = tokenVerifier;
+        this.perMessageDeflate = perMessageDeflate;
+    }
+
+    // The container accepts permessage-deflate whenever the client offers it;
+    // declining it here is the only way to turn compression off per endpoint
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (perMessageDeflate) {
+            return extensions;
+        }
+        return extensions.stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                .toList();
+    }
 
     @Override
     protected Principal determineUser(ServerHttpRequest request,
                                       WebSocketHandler wsHandler,
                                       Map<String, Object> attributes) {
-        log.info("CustomHandshakeHandler: Processing WebSocket handshake");
-        List<String> authHeaders = request.getHeaders().get("Authorization");
-
-        if (authHeaders != null && !authHeaders.isEmpty()) {
-            String authHeader = authHeaders.get(0);
-            log.info("CustomHandshakeHandler: Authorization header found");
-            
-            if (authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                log.info("CustomHandshakeHandler: Bearer token found, length: {}", token.length());
-                
-                try {
-                    Claims claims = jwtTokenUtils.extractAllClaims(token);
-                    String userId = claims.get("userId", String.class);
-                    if (userId != null) {
-                        log.info("CustomHandshakeHandler: WebSocket Principal = userId: {}", userId);
-                        return () -> userId; //  sets Principal.getName() = userId
-                    } else {
-                        log.warn("CustomHandshakeHandler: No userId found in token claims");
-                    }
-                } catch (Exception e) {
-                    log.error("CustomHandshakeHandler: Failed to extract claims: {}", e.getMessage());
-                }
-            } else {
-                log.warn("CustomHandshakeHandler: Authorization header doesn't start with 'Bearer '");
-            }
-        } else {
-            log.warn("CustomHandshakeHandler: No Authorization header found");
+        // Browsers cannot set headers on the upgrade request, so most clients
+        // authenticate on CONNECT instead; the verifier caches either way
+        StompPrincipal principal = tokenVerifier.verifyHeader(request.getHeaders().getFirst("Authorization"));
+        if (principal == null) {
+            log.debug("CustomHandshakeHandler: No verified principal at handshake, deferring to CONNECT");
+            return null;
         }
-        
-        log.warn("CustomHandshakeHandler: Returning null Principal");
-        return null;
+        attributes.put(WebSocketTokenVerifier.PRINCIPAL_ATTRIBUTE, principal);
+        log.debug("CustomHandshakeHandler: WebSocket Principal = userId: {}", principal.getName());
+        return principal;
     }
 }
@@ -0,0 +1,131 @@
+package com.btalk.security;
+
+import com.btalk.dto.response.ApiResponse;
+import com.btalk.websocket.ConversationMembershipCache;
+import com.btalk.websocket.EncodedMessageSender;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Authorizes SUBSCRIBE and SEND frames by destination on the client inbound
+ * channel, after {@link AuthChannelInterceptorAdapter} has set the principal.
+ * <ul>
+ *   <li>Subscribing to {@code /topic/conversation/{id}/...} or
+ *       {@code /topic/call/{id}/...} and sending to {@code /app/chat/{id}/...}
+ *       require the user to be a participant, checked against
+ *       {@link ConversationMembershipCache}.</li>
+ *   <li>{@code /user/...} and {@code /app/...} subscriptions are scoped to the
+ *       caller by Spring and pass through, as do sends to other {@code /app/...}
+ *       handlers.</li>
+ *   <li>Other broker destinations can only be subscribed to when listed as
+ *       public, and can never be sent to directly; only the server publishes there.</li>
+ * </ul>
+ * Destinations are parsed by prefix rather than with a path matcher. A
+ * wildcard id such as {@code *} or {@code **} never matches a membership, so
+ * pattern subscriptions on the simple broker are refused as well. Denied
+ * frames are dropped and the user is told on {@code /user/queue/errors}; the
+ * session itself stays open.
+ */
+@Component
+@Slf4j
+public class DestinationAuthorizationInterceptor implements ChannelInterceptor {
+
+    private static final List<String> CONVERSATION_TOPIC_PREFIXES = List.of("/topic/conversation/", "/topic/call/");
+    private static final String CONVERSATION_SEND_PREFIX = "/app/chat/";
+
+    private final ConversationMembershipCache membershipCache;
+    private final EncodedMessageSender encodedMessageSender;
+    private final Set<String> publicTopics;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    public DestinationAuthorizationInterceptor(ConversationMembershipCache membershipCache,
+                                               @Lazy EncodedMessageSender encodedMessageSender,
+                                               @Value("${app.websocket.authorization.public-topics:/topic/announcements}")
+                                               Set<String> publicTopics) {
+        this.membershipCache = membershipCache;
+        this.encodedMessageSender = encodedMessageSender;
+        this.publicTopics = Set.copyOf(publicTopics);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type != SimpMessageType.SUBSCRIBE && type != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return message;
+        }
+
+        checks.increment();
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        if (isAllowed(type, destination, user)) {
+            return message;
+        }
+
+        denied.increment();
+        String userId = user != null ? user.getName() : null;
+        log.warn("Denied {} to {} for user {}", type, destination, userId);
+        if (userId != null) {
+            encodedMessageSender.send("/user/" + userId + "/queue/errors",
+                    ApiResponse.error("Not allowed to " + (type == SimpMessageType.SUBSCRIBE ? "subscribe to " : "send to ")
+                            + destination));
+        }
+        return null;
+    }
+
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    public long getDeniedCount() {
+        return denied.sum();
+    }
+
+    private boolean isAllowed(SimpMessageType type, String destination, Principal user) {
+        if (user == null) {
+            return false;
+        }
+        if (type == SimpMessageType.MESSAGE) {
+            // Clients only send to application handlers; broker destinations are server-published
+            if (destination.startsWith(CONVERSATION_SEND_PREFIX)) {
+                return isParticipant(user, segmentAfter(destination, CONVERSATION_SEND_PREFIX));
+            }
+            return destination.startsWith("/app/");
+        }
+        for (String prefix : CONVERSATION_TOPIC_PREFIXES) {
+            if (destination.startsWith(prefix)) {
+                return isParticipant(user, segmentAfter(destination, prefix));
+            }
+        }
+        return destination.startsWith("/user/") || destination.startsWith("/app/")
+                || publicTopics.contains(destination);
+    }
+
+    private boolean isParticipant(Principal user, String conversationId) {
+        return !conversationId.isEmpty() && membershipCache.isParticipant(user.getName(), conversationId);
+    }
+
+    private static String segmentAfter(String destination, String prefix) {
+        int start = prefix.length();
+        int end = destination.indexOf('/', start);
+        return end < 0 ? destination.substring(start) : destination.substring(start, end);
+    }
+}
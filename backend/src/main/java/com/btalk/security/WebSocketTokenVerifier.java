@@ -0,0 +1,122 @@
+package com.btalk.security;
+
+import com.btalk.utils.JwtTokenUtils;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies WebSocket bearer tokens once and remembers the result until the
+ * token expires. The userId claim is the principal, so neither the handshake
+ * nor CONNECT touches the database, and a client reconnecting with the same
+ * token skips signature verification entirely.
+ * <p>
+ * Tokens are keyed by their SHA-256 hash so the cache never holds a usable
+ * credential. The cache is bounded: expired entries are purged when it fills
+ * up, and if that is not enough an arbitrary entry is dropped.
+ */
+@Component
+@Slf4j
+public class WebSocketTokenVerifier {
+
+    // Session attribute carrying the principal verified during the handshake
+    public static final String PRINCIPAL_ATTRIBUTE = "verifiedPrincipal";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenUtils jwtTokenUtils;
+    private final int maxEntries;
+
+    // sha256(token) -> verified principal and expiry
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    public WebSocketTokenVerifier(JwtTokenUtils jwtTokenUtils,
+                                  @Value("${app.websocket.auth.token-cache-size:10000}") int maxEntries) {
+        this.jwtTokenUtils = jwtTokenUtils;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Resolves an {@code Authorization} header value to a principal, or null
+     * when the header is missing, malformed, expired or carries no userId.
+     */
+    public StompPrincipal verifyHeader(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return verify(authorizationHeader.substring(BEARER_PREFIX.length()));
+    }
+
+    public StompPrincipal verify(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                return cached.principal;
+            }
+            verifiedTokens.remove(key, cached);
+        }
+
+        Claims claims;
+        try {
+            claims = jwtTokenUtils.extractAllClaims(token);
+        } catch (Exception e) {
+            log.warn("WebSocket token rejected: {}", e.getMessage());
+            return null;
+        }
+        String userId = claims.get("userId", String.class);
+        Date expiration = claims.getExpiration();
+        if (userId == null || expiration == null) {
+            log.warn("WebSocket token has no userId or expiry claim");
+            return null;
+        }
+
+        StompPrincipal principal = new StompPrincipal(userId);
+        remember(key, new VerifiedToken(principal, expiration.getTime()), now);
+        return principal;
+    }
+
+    public int getCachedTokenCount() {
+        return verifiedTokens.size();
+    }
+
+    private void remember(String key, VerifiedToken verified, long now) {
+        if (verifiedTokens.size() >= maxEntries) {
+            verifiedTokens.values().removeIf(entry -> entry.expiresAt <= now);
+            Iterator<String> keys = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        verifiedTokens.put(key, verified);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record VerifiedToken(StompPrincipal principal, long expiresAt) {
+    }
+}
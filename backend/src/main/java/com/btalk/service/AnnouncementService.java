@@ -0,0 +1,17 @@
+package com.btalk.service;
+
+import com.btalk.dto.AnnouncementDto;
+import com.btalk.dto.request.AnnouncementRequest;
+
+import java.util.List;
+
+public interface AnnouncementService {
+    
+    AnnouncementDto broadcast(String senderId, AnnouncementRequest request);
+    
+    List<AnnouncementDto> getAnnouncements(String userId, int limit);
+    
+    Long getUnreadCount(String userId);
+    
+    void markAsRead(String announcementId, String userId);
+}
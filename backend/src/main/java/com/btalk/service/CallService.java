@@ -9,4 +9,7 @@ public interface CallService {
 	void answerCall(CallRequest request);
 	void rejectCall(CallRequest request);
 	void endCall(CallRequest request);
+	boolean isUserBusy(String userId);
+	// Ends the user's call, or takes them out of a group call, unless they reconnect within the grace period
+	void releaseCallsAfterDisconnect(String userId);
 }
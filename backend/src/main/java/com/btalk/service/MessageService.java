@@ -2,6 +2,7 @@ package com.btalk.service;
 
 import com.btalk.dto.MessageDto;
 import com.btalk.dto.request.MessageRequest;
+import com.btalk.entity.Call;
 import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.data.domain.Page;
@@ -17,4 +18,5 @@ public interface MessageService {
     Page<MessageDto> getConversationMessages(String conversationId, String userId, int page, int size);
     Page<MessageDto> getMessagesBefore(String conversationId, String userId, LocalDateTime before, int page, int size);
     void deleteMessage(String messageId, String userId);
+    MessageDto saveCallSummary(Call call);
 }
\ No newline at end of file
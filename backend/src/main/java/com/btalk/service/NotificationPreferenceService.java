@@ -0,0 +1,17 @@
+package com.btalk.service;
+
+import com.btalk.constants.NotificationType;
+import com.btalk.dto.NotificationPreferencesDto;
+
+import java.util.Set;
+
+public interface NotificationPreferenceService {
+    
+    boolean isEnabled(String userId, NotificationType type, String conversationId);
+    
+    NotificationPreferencesDto getPreferences(String userId);
+    
+    NotificationPreferencesDto updateDisabledTypes(String userId, Set<NotificationType> disabledTypes);
+    
+    void setConversationMuted(String userId, String conversationId, boolean muted);
+}
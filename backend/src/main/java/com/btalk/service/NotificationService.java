@@ -1,12 +1,15 @@
 package com.btalk.service;
 
+import com.btalk.dto.NotificationDigestDto;
 import com.btalk.dto.NotificationDto;
+import com.btalk.dto.NotificationFeedDto;
 
 import com.btalk.dto.NotificationRequest;
 import com.btalk.constants.NotificationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface NotificationService {
@@ -17,6 +20,8 @@ public interface NotificationService {
     
     Page<NotificationDto> getUserNotifications(String userId, Pageable pageable);
     
+    NotificationFeedDto getNotificationFeed(String userId, LocalDateTime before, String beforeId, int size);
+    
     List<NotificationDto> getUnreadNotifications(String userId);
     
     Long getUnreadCount(String userId);
@@ -31,6 +36,8 @@ public interface NotificationService {
     
     void sendRealTimeNotification(String recipientId, NotificationDto notification);
     
+    NotificationDigestDto takeNotificationDigest(String userId);
+    
     void sendNotificationToUser(String recipientId, String title, String message, NotificationType type, String data);
     
     void sendNotificationToUserAsync(String recipientId, String title, String message, NotificationType type, String senderId, String data);
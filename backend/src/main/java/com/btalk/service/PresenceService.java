@@ -0,0 +1,12 @@
+package com.btalk.service;
+
+import com.btalk.dto.PresenceDto;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PresenceService {
+    List<PresenceDto> getPresence(Collection<String> userIds);
+    List<PresenceDto> watchPresence(String sessionId, String watcherId, Collection<String> userIds);
+    void unwatchPresence(String sessionId, Collection<String> userIds);
+}
@@ -2,13 +2,18 @@ package com.btalk.service;
 
 import com.btalk.constants.UserStatus;
 import com.btalk.dto.UserDto;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
     UserDto getUserById(String userId);
     UserDto getUserByEmail(String email);
     UserDto updateUserProfile(String userId, UserDto userDto);
     void updateUserStatus(String userId, UserStatus status);
+    void updateUserStatuses(Collection<String> userIds, UserStatus status);
+    void updateLastSeen(Map<String, LocalDateTime> lastSeenByUserId);
     List<UserDto> searchUsersByName(String name);
     List<UserDto> getUsersByIds(List<String> userIds);
 }
\ No newline at end of file
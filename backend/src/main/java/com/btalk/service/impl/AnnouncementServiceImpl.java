@@ -0,0 +1,162 @@
+package com.btalk.service.impl;
+
+import com.btalk.constants.NotificationType;
+import com.btalk.dto.AnnouncementDto;
+import com.btalk.dto.request.AnnouncementRequest;
+import com.btalk.entity.Announcement;
+import com.btalk.entity.AnnouncementRead;
+import com.btalk.entity.Notification;
+import com.btalk.entity.User;
+import com.btalk.repository.AnnouncementReadRepository;
+import com.btalk.repository.AnnouncementRepository;
+import com.btalk.repository.NotificationRepository;
+import com.btalk.repository.UserRepository;
+import com.btalk.service.AnnouncementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnnouncementServiceImpl implements AnnouncementService {
+
+    private static final String ANNOUNCEMENT_TOPIC = "/topic/announcements";
+    private static final int MATERIALIZE_CHUNK_SIZE = 500;
+
+    private final AnnouncementRepository announcementRepository;
+    private final AnnouncementReadRepository announcementReadRepository;
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor notificationTaskExecutor;
+
+    @Override
+    public AnnouncementDto broadcast(String senderId, AnnouncementRequest request) {
+        Announcement announcement = announcementRepository.save(Announcement.builder()
+                .senderId(senderId)
+                .title(request.getTitle())
+                .message(request.getMessage())
+                .data(request.getData())
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        // One frame on a shared topic reaches every online user; offline users
+        // pick the announcement up from GET /api/announcements
+        AnnouncementDto dto = convertToDto(announcement, false);
+        messagingTemplate.convertAndSend(ANNOUNCEMENT_TOPIC, dto);
+        log.info("Broadcast announcement {}: {}", announcement.getAnnouncementId(), announcement.getTitle());
+
+        if (request.isMaterialize()) {
+            notificationTaskExecutor.execute(() -> materialize(announcement));
+        }
+        return dto;
+    }
+
+    @Override
+    public List<AnnouncementDto> getAnnouncements(String userId, int limit) {
+        List<Announcement> announcements = announcementRepository.findLatest(PageRequest.of(0, limit));
+        if (announcements.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> readIds = new HashSet<>(announcementReadRepository.findReadAnnouncementIds(userId,
+                announcements.stream().map(Announcement::getAnnouncementId).collect(Collectors.toList())));
+        return announcements.stream()
+                .map(a -> convertToDto(a, readIds.contains(a.getAnnouncementId())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Long getUnreadCount(String userId) {
+        return announcementRepository.countUnreadByUserId(userId);
+    }
+
+    @Override
+    public void markAsRead(String announcementId, String userId) {
+        // Read state is only ever written for users who actually read the announcement
+        if (announcementReadRepository.existsByAnnouncementIdAndUserId(announcementId, userId)) {
+            return;
+        }
+        AnnouncementRead read = new AnnouncementRead();
+        read.setAnnouncementId(announcementId);
+        read.setUserId(userId);
+        read.setReadAt(LocalDateTime.now());
+        try {
+            announcementReadRepository.save(read);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Announcement {} already marked as read by user {}", announcementId, userId);
+        }
+    }
+
+    /**
+     * Writes a Notification row per user for clients that only read the
+     * notification list. Users are streamed in keyset-ordered chunks and each
+     * chunk is inserted in its own transaction, so memory and lock time stay
+     * bounded regardless of the user count. No per-user push is sent; online
+     * users already received the topic broadcast.
+     */
+    private void materialize(Announcement announcement) {
+        int typeBit = 1 << NotificationType.SYSTEM_ANNOUNCEMENT.ordinal();
+        User sender = announcement.getSenderId() != null
+                ? userRepository.getReferenceById(announcement.getSenderId())
+                : null;
+        String afterId = "";
+        int total = 0;
+
+        try {
+            while (true) {
+                List<String> userIds = userRepository.findUserIdsAcceptingNotificationType(afterId, typeBit, MATERIALIZE_CHUNK_SIZE);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+
+                List<Notification> chunk = userIds.stream()
+                        .map(userId -> Notification.builder()
+                                .recipient(userRepository.getReferenceById(userId))
+                                .sender(sender)
+                                .title(announcement.getTitle())
+                                .message(announcement.getMessage())
+                                .type(NotificationType.SYSTEM_ANNOUNCEMENT)
+                                .data(announcement.getData())
+                                .isRead(false)
+                                .isDeleted(false)
+                                .createdAt(announcement.getCreatedAt())
+                                .build())
+                        .collect(Collectors.toList());
+                transactionTemplate.executeWithoutResult(status -> notificationRepository.saveAll(chunk));
+
+                total += userIds.size();
+                afterId = userIds.get(userIds.size() - 1);
+            }
+            log.info("Materialized announcement {} for {} users", announcement.getAnnouncementId(), total);
+        } catch (Exception e) {
+            log.error("Failed to materialize announcement {} after {} users: {}",
+                    announcement.getAnnouncementId(), total, e.getMessage(), e);
+        }
+    }
+
+    private AnnouncementDto convertToDto(Announcement announcement, boolean isRead) {
+        return AnnouncementDto.builder()
+                .announcementId(announcement.getAnnouncementId())
+                .senderId(announcement.getSenderId())
+                .title(announcement.getTitle())
+                .message(announcement.getMessage())
+                .data(announcement.getData())
+                .isRead(isRead)
+                .createdAt(announcement.getCreatedAt())
+                .build();
+    }
+}
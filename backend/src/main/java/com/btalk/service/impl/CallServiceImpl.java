@@ -1,22 +1,35 @@
 package com.btalk.service.impl;
 
-import java.time.LocalDateTime;
-import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.btalk.constants.CallStatus;
 import com.btalk.constants.CallType;
+import com.btalk.constants.NotificationType;
+import com.btalk.dto.MessageDto;
 import com.btalk.dto.request.CallRequest;
+import com.btalk.dto.response.ApiResponse;
 import com.btalk.entity.Call;
 import com.btalk.repository.CallRepository;
 import com.btalk.repository.ConversationRepository;
 import com.btalk.repository.ParticipantRepository;
 import com.btalk.repository.UserRepository;
 import com.btalk.service.CallService;
+import com.btalk.service.MessageService;
+import com.btalk.service.NotificationService;
+import com.btalk.utils.TimingWheel;
 import com.btalk.dto.CallSignal;
+import com.btalk.websocket.ActiveCallRegistry;
+import com.btalk.websocket.ActiveCallRegistry.ActiveCall;
+import com.btalk.websocket.EncodedMessageSender;
+import com.btalk.websocket.EncodedPayload;
+import com.btalk.websocket.PresenceRegistry;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,23 +37,52 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CallServiceImpl implements CallService {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final EncodedMessageSender encodedMessageSender;
     private final CallRepository callRepository;
     private final UserRepository userRepository;
     private final ConversationRepository conversationRepository;
     private final ParticipantRepository participantRepository;
+    private final ActiveCallRegistry activeCallRegistry;
+    private final MessageService messageService;
+    private final NotificationService notificationService;
+    private final PresenceRegistry presenceRegistry;
+    private final TimingWheel timingWheel;
+    // Final call records are written off the request and timing wheel threads; it
+    // never runs a task on the submitting thread
+    private final Executor callRecordExecutor;
+
+    // Media flows peer to peer, so a signaling reconnect within this keeps the call
+    @Value("${app.calls.disconnect-grace-ms:30000}")
+    private long disconnectGraceMs;
 
     public CallServiceImpl(
-            SimpMessagingTemplate messagingTemplate,
+            EncodedMessageSender encodedMessageSender,
             CallRepository callRepository,
             UserRepository userRepository,
             ConversationRepository conversationRepository,
-            ParticipantRepository participantRepository) {
-        this.messagingTemplate = messagingTemplate;
+            ParticipantRepository participantRepository,
+            ActiveCallRegistry activeCallRegistry,
+            MessageService messageService,
+            NotificationService notificationService,
+            PresenceRegistry presenceRegistry,
+            TimingWheel timingWheel,
+            @Qualifier("callRecordExecutor") Executor callRecordExecutor) {
+        this.encodedMessageSender = encodedMessageSender;
         this.callRepository = callRepository;
         this.userRepository = userRepository;
         this.conversationRepository = conversationRepository;
         this.participantRepository = participantRepository;
+        this.activeCallRegistry = activeCallRegistry;
+        this.messageService = messageService;
+        this.notificationService = notificationService;
+        this.presenceRegistry = presenceRegistry;
+        this.timingWheel = timingWheel;
+        this.callRecordExecutor = callRecordExecutor;
+    }
+
+    @Override
+    public boolean isUserBusy(String userId) {
+        return activeCallRegistry.isBusy(userId);
     }
 
     @Override
@@ -77,22 +119,25 @@ public class CallServiceImpl implements CallService {
                 }
             }
             
-            Call call = new Call();
-            call.setCallId(request.getCallId());
-            call.setCallerId(request.getCallerId());
-            call.setRecipientId(request.getRecipientId()); // This can be null for group calls
-            call.setConversationId(request.getConversationId());
-            call.setStartTime(LocalDateTime.now());
-            call.setCallType(request.getCallType());
-            call.setStatus(request.getStatus());
-
-            callRepository.save(call);
-            log.info("Call saved to database: {}", call.getCallId());
-
-            if (CallType.PRIVATE.equals(request.getCallType())) {
-                notifyPrivateCall(request);
-            } else {
-                notifyGroupCall(request);
+            // Nothing rings if the caller or the recipient is already in a call; the
+            // record is written once, when the call ends or the ring timeout expires
+            ActiveCall call = new ActiveCall(request.getCallId(), request.getCallerId(),
+                    request.getRecipientId(), request.getConversationId(), request.getCallType());
+            if (!activeCallRegistry.register(call, this::onTimeout)) {
+                throw new RuntimeException("Caller or recipient is busy in another call");
+            }
+            log.info("Call registered: {}", call.getCallId());
+
+            try {
+                if (CallType.PRIVATE.equals(request.getCallType())) {
+                    notifyPrivateCall(request);
+                } else {
+                    notifyGroupCall(request);
+                }
+            } catch (RuntimeException e) {
+                // Nobody is ringing, so the users must not stay busy
+                activeCallRegistry.hangUp(call.getCallId());
+                throw e;
             }
         } catch (Exception e) {
             log.error("Error initiating call", e);
@@ -105,16 +150,19 @@ public class CallServiceImpl implements CallService {
         try {
             log.info("Notifying private call to recipient: {}", request.getRecipientId());
             
+            // One encoding for both notifications
+            EncodedPayload payload = encodedMessageSender.encode(request);
+
             // Send WebSocket notification to recipient (only the recipient should ring)
-            messagingTemplate.convertAndSend(
+            encodedMessageSender.send(
                     "/user/" + request.getRecipientId() + "/queue/call/incoming",
-                    request
+                    payload
             );
             
             // Send confirmation to caller (caller should not ring, just get confirmation)
-            messagingTemplate.convertAndSend(
+            encodedMessageSender.send(
                     "/user/" + request.getCallerId() + "/queue/call/initiated",
-                    request
+                    payload
             );
             
             log.info("Private call notifications sent successfully");
@@ -137,17 +185,20 @@ public class CallServiceImpl implements CallService {
 
             log.info("Found {} participants for group call (excluding caller)", participantIds.size());
 
+            // Encoded once for every participant and the caller
+            EncodedPayload payload = encodedMessageSender.encode(request);
+
             participantIds.forEach(participantId -> {
-                messagingTemplate.convertAndSend(
+                encodedMessageSender.send(
                         "/user/" + participantId + "/queue/call/incoming",
-                        request
+                        payload
                 );
             });
             
             // Send confirmation to caller
-            messagingTemplate.convertAndSend(
+            encodedMessageSender.send(
                     "/user/" + request.getCallerId() + "/queue/call/initiated",
-                    request
+                    payload
             );
             
             log.info("Group call notifications sent successfully to {} participants", participantIds.size());
@@ -162,26 +213,29 @@ public class CallServiceImpl implements CallService {
         try {
             log.info("Answering call: {}", request.getCallId());
             
-            callRepository.findById(request.getCallId()).ifPresent(call -> {
-                call.setStatus(CallStatus.ONGOING);
-                callRepository.save(call);
-
-                // Notify caller that call was answered
-                messagingTemplate.convertAndSend(
-                        "/user/" + request.getCallerId() + "/queue/call/answered",
-                        request
+            ActiveCall call = activeCallRegistry.answer(request.getCallId(), request.getRecipientId());
+            if (call == null) {
+                // Unknown, answered elsewhere first, already over, or the user is in another call
+                throw new RuntimeException("Call cannot be answered: " + request.getCallId());
+            }
+
+            EncodedPayload payload = encodedMessageSender.encode(request);
+
+            // Notify caller that call was answered
+            encodedMessageSender.send(
+                    "/user/" + request.getCallerId() + "/queue/call/answered",
+                    payload
+            );
+            
+            // Notify recipient that call is active
+            if (request.getRecipientId() != null) {
+                encodedMessageSender.send(
+                        "/user/" + request.getRecipientId() + "/queue/call/active",
+                        payload
                 );
-                
-                // Notify recipient that call is active
-                if (request.getRecipientId() != null) {
-                    messagingTemplate.convertAndSend(
-                            "/user/" + request.getRecipientId() + "/queue/call/active",
-                            request
-                    );
-                }
-                
-                log.info("Call answered successfully");
-            });
+            }
+            
+            log.info("Call answered successfully");
         } catch (Exception e) {
             log.error("Error answering call", e);
             throw new RuntimeException("Failed to answer call", e);
@@ -193,27 +247,30 @@ public class CallServiceImpl implements CallService {
         try {
             log.info("Rejecting call: {}", request.getCallId());
             
-            callRepository.findById(request.getCallId()).ifPresent(call -> {
-                call.setStatus(CallStatus.REJECTED);
-                call.setEndTime(LocalDateTime.now());
-                callRepository.save(call);
-
-                // Notify caller that call was rejected
-                messagingTemplate.convertAndSend(
-                        "/user/" + request.getCallerId() + "/queue/call/rejected",
-                        request
+            ActiveCall call = activeCallRegistry.finishRinging(request.getCallId(), CallStatus.REJECTED);
+            if (call == null) {
+                log.warn("Call {} is not ringing, nothing to reject", request.getCallId());
+                return;
+            }
+            saveRecord(call);
+
+            EncodedPayload payload = encodedMessageSender.encode(request);
+
+            // Notify caller that call was rejected
+            encodedMessageSender.send(
+                    "/user/" + request.getCallerId() + "/queue/call/rejected",
+                    payload
+            );
+            
+            // Notify recipient that call was rejected
+            if (request.getRecipientId() != null) {
+                encodedMessageSender.send(
+                        "/user/" + request.getRecipientId() + "/queue/call/rejected",
+                        payload
                 );
-                
-                // Notify recipient that call was rejected
-                if (request.getRecipientId() != null) {
-                    messagingTemplate.convertAndSend(
-                            "/user/" + request.getRecipientId() + "/queue/call/rejected",
-                            request
-                    );
-                }
-                
-                log.info("Call rejected successfully");
-            });
+            }
+            
+            log.info("Call rejected successfully");
         } catch (Exception e) {
             log.error("Error rejecting call", e);
             throw new RuntimeException("Failed to reject call", e);
@@ -225,45 +282,180 @@ public class CallServiceImpl implements CallService {
         try {
             log.info("Ending call: {}", request.getCallId());
             
-            callRepository.findById(request.getCallId()).ifPresent(call -> {
-                call.setStatus(CallStatus.ENDED);
-                call.setEndTime(LocalDateTime.now());
-                
-                // Calculate call duration
-                if (call.getStartTime() != null && call.getEndTime() != null) {
-                    Duration duration = Duration.between(call.getStartTime(), call.getEndTime());
-                    call.setDuration((int) duration.toSeconds());
-                }
-                
-                callRepository.save(call);
-
-                // Notify all participants that call ended
-                if (CallType.PRIVATE.equals(call.getCallType()) && call.getRecipientId() != null) {
-                    messagingTemplate.convertAndSend(
-                            "/user/" + call.getRecipientId() + "/queue/call/ended",
-                            request
-                    );
-                } else if (CallType.GROUP.equals(call.getCallType()) && call.getConversationId() != null) {
-                    List<String> participantIds = participantRepository.findUserIdsByConversationId(call.getConversationId());
-                    participantIds.forEach(participantId -> {
-                        messagingTemplate.convertAndSend(
-                                "/user/" + participantId + "/queue/call/ended",
-                                request
-                        );
-                    });
+            // ENDED if it was answered, MISSED if the caller gave up while it rang
+            ActiveCall call = activeCallRegistry.hangUp(request.getCallId());
+            if (call == null) {
+                log.warn("Call {} is not active, nothing to end", request.getCallId());
+                return;
+            }
+            saveRecord(call);
+
+            notifyEnded(call, encodedMessageSender.encode(request));
+            log.info("Call ended successfully");
+        } catch (Exception e) {
+            log.error("Error ending call", e);
+            throw new RuntimeException("Failed to end call", e);
+        }
+    }
+
+    @Override
+    public void releaseCallsAfterDisconnect(String userId) {
+        if (!activeCallRegistry.isBusy(userId)) {
+            return;
+        }
+        try {
+            timingWheel.schedule(disconnectGraceMs, () -> releaseIfStillGone(userId));
+        } catch (IllegalStateException e) {
+            // Wheel stopped on shutdown
+        }
+    }
+
+    // Runs on the timing wheel thread: registry updates only, the rest is handed off
+    private void releaseIfStillGone(String userId) {
+        if (presenceRegistry.getSessionCount(userId) > 0) {
+            return;
+        }
+        // A later disconnect scheduled its own check, which gets the full grace period
+        Instant lastSeen = presenceRegistry.getLastSeen(userId);
+        if (lastSeen != null && lastSeen.plusMillis(disconnectGraceMs).isAfter(Instant.now())) {
+            return;
+        }
+        releaseCallsOf(userId);
+    }
+
+    private void releaseCallsOf(String userId) {
+        ActiveCall call = activeCallRegistry.callOf(userId);
+        if (call == null) {
+            return;
+        }
+        // Others in a group call carry on without the user; anything else ends
+        if (CallType.GROUP.equals(call.getCallType()) && !userId.equals(call.getCallerId())
+                && activeCallRegistry.leave(call.getCallId(), userId)) {
+            log.info("User {} dropped out of group call {}", userId, call.getCallId());
+            return;
+        }
+        log.info("Ending call {} because user {} disconnected", call.getCallId(), userId);
+        callRecordExecutor.execute(() -> {
+            try {
+                endCall(toRequest(call, CallStatus.ENDED));
+            } catch (Exception e) {
+                log.error("Failed to end call {} of disconnected user {}", call.getCallId(), userId, e);
+            }
+        });
+    }
+
+    // Notifies everyone who was rung or took part that the call is over
+    private void notifyEnded(ActiveCall call, EncodedPayload payload) {
+        if (CallType.PRIVATE.equals(call.getCallType()) && call.getRecipientId() != null) {
+            encodedMessageSender.send(
+                    "/user/" + call.getRecipientId() + "/queue/call/ended",
+                    payload
+            );
+        } else if (CallType.GROUP.equals(call.getCallType()) && call.getConversationId() != null) {
+            List<String> participantIds = participantRepository.findUserIdsByConversationId(call.getConversationId());
+            participantIds.forEach(participantId -> {
+                encodedMessageSender.send(
+                        "/user/" + participantId + "/queue/call/ended",
+                        payload
+                );
+            });
+        }
+
+        // Notify caller
+        encodedMessageSender.send(
+                "/user/" + call.getCallerId() + "/queue/call/ended",
+                payload
+        );
+    }
+
+    // Runs on the timing wheel thread, so everything but the entity snapshot is handed
+    // to callRecordExecutor, which retries rather than running work here when saturated
+    private void onTimeout(ActiveCall call) {
+        saveRecord(call);
+        if (call.getStatus() == CallStatus.MISSED) {
+            log.info("Call {} was not answered in time", call.getCallId());
+            callRecordExecutor.execute(() -> notifyMissed(call));
+        } else {
+            log.warn("Call {} was ended after reaching the maximum duration", call.getCallId());
+            callRecordExecutor.execute(() -> {
+                try {
+                    notifyEnded(call, encodedMessageSender.encode(toRequest(call, CallStatus.ENDED)));
+                } catch (Exception e) {
+                    log.error("Error notifying end of call {}", call.getCallId(), e);
                 }
-                
-                // Notify caller
-                messagingTemplate.convertAndSend(
-                        "/user/" + call.getCallerId() + "/queue/call/ended",
-                        request
+            });
+        }
+    }
+
+    private static CallRequest toRequest(ActiveCall call, CallStatus status) {
+        CallRequest request = new CallRequest();
+        request.setCallId(call.getCallId());
+        request.setCallerId(call.getCallerId());
+        request.setRecipientId(call.getRecipientId());
+        request.setConversationId(call.getConversationId());
+        request.setCallType(call.getCallType());
+        request.setStatus(status);
+        return request;
+    }
+
+    private void notifyMissed(ActiveCall call) {
+        try {
+            CallRequest request = toRequest(call, CallStatus.MISSED);
+
+            List<String> rungUserIds;
+            if (CallType.GROUP.equals(call.getCallType()) && call.getConversationId() != null) {
+                rungUserIds = participantRepository.findUserIdsByConversationId(call.getConversationId())
+                        .stream()
+                        .filter(userId -> !userId.equals(call.getCallerId()))
+                        .toList();
+            } else {
+                rungUserIds = call.getRecipientId() != null ? List.of(call.getRecipientId()) : List.of();
+            }
+
+            // Both sides stop ringing the same way as for a hang-up
+            EncodedPayload payload = encodedMessageSender.encode(request);
+            encodedMessageSender.send("/user/" + call.getCallerId() + "/queue/call/ended", payload);
+            rungUserIds.forEach(userId -> {
+                encodedMessageSender.send("/user/" + userId + "/queue/call/ended", payload);
+                notificationService.sendNotificationToUserAsync(
+                        userId,
+                        "Missed Call",
+                        "You missed a call",
+                        NotificationType.CALL_MISSED,
+                        call.getCallerId(),
+                        "{\"conversationId\":\"" + call.getConversationId() + "\",\"callId\":\"" + call.getCallId() + "\"}"
                 );
-                
-                log.info("Call ended successfully");
             });
         } catch (Exception e) {
-            log.error("Error ending call", e);
-            throw new RuntimeException("Failed to end call", e);
+            log.error("Error notifying missed call {}", call.getCallId(), e);
+        }
+    }
+
+    private void saveRecord(ActiveCall activeCall) {
+        Call record = activeCall.toEntity();
+        callRecordExecutor.execute(() -> {
+            try {
+                callRepository.save(record);
+                log.info("Call {} saved as {}", record.getCallId(), record.getStatus());
+                postCallSummary(record);
+            } catch (Exception e) {
+                log.error("Failed to save call {}", record.getCallId(), e);
+            }
+        });
+    }
+
+    // The call shows up in the conversation history like any other message
+    private void postCallSummary(Call record) {
+        if (record.getConversationId() == null) {
+            return;
         }
+        MessageDto summary = messageService.saveCallSummary(record);
+        encodedMessageSender.send(
+                "/topic/conversation/" + record.getConversationId() + "/messages",
+                ApiResponse.success("New message received", Map.of(
+                        "eventType", "NEW_MESSAGE",
+                        "message", summary
+                ))
+        );
     }
 }
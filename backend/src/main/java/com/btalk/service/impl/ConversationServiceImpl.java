@@ -16,6 +16,7 @@ import com.btalk.repository.UserRepository;
 import com.btalk.repository.MessageRepository;
 import com.btalk.service.ConversationService;
 import com.btalk.service.NotificationService;
+import com.btalk.websocket.ConversationMembershipCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -34,6 +35,7 @@ public class ConversationServiceImpl implements ConversationService {
     private final UserRepository userRepository;
     private final MessageRepository messageRepository;
     private final NotificationService notificationService;
+    private final ConversationMembershipCache membershipCache;
 
     @Override
     public ConversationDto createConversation(String name, List<String> participantIds, String creatorId) {
@@ -78,6 +80,7 @@ public class ConversationServiceImpl implements ConversationService {
                     );
                 }
             }
+            membershipCache.evict(savedConversation.getConversationId(), participantIds);
 
             return convertToDto(savedConversation);
         } catch (Exception e) {
@@ -132,6 +135,7 @@ public class ConversationServiceImpl implements ConversationService {
                 .build();
 
         participantRepository.save(participant);
+        membershipCache.addParticipant(conversationId, userId);
 
         // Send notification to added user
         String title = "Added to Conversation";
@@ -155,6 +159,7 @@ public class ConversationServiceImpl implements ConversationService {
         }
 
         participantRepository.delete(participant);
+        membershipCache.removeParticipant(conversationId, userId);
 
         // Send notification to removed user
         User removedByUser = userRepository.findById(removedBy)
@@ -235,6 +240,7 @@ public class ConversationServiceImpl implements ConversationService {
 
         // Delete all participants
         participantRepository.deleteAll(participants);
+        membershipCache.evict(conversationId, participants.stream().map(Participant::getUserId).collect(Collectors.toList()));
 
         // Delete the conversation
         conversationRepository.delete(conversation);
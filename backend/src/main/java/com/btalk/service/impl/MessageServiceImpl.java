@@ -7,6 +7,8 @@ import com.btalk.entity.Message;
 import com.btalk.entity.Participant;
 import com.btalk.entity.User;
 import com.btalk.entity.Attachment;
+import com.btalk.entity.Call;
+import com.btalk.constants.MessageType;
 import com.btalk.constants.NotificationType;
 import com.btalk.repository.ConversationRepository;
 import com.btalk.repository.MessageRepository;
@@ -14,13 +16,14 @@ import com.btalk.repository.ParticipantRepository;
 import com.btalk.repository.UserRepository;
 import com.btalk.repository.AttachmentRepository;
 import com.btalk.service.MessageService;
+import com.btalk.service.NotificationPreferenceService;
 import com.btalk.service.NotificationService;
+import com.btalk.utils.LaneExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -28,6 +31,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,9 +44,10 @@ public class MessageServiceImpl implements MessageService {
     private final ParticipantRepository participantRepository;
     private final UserRepository userRepository;
     private final AttachmentRepository attachmentRepository;
-    private final SimpMessagingTemplate messagingTemplate;
     private final NotificationService notificationService;
+    private final NotificationPreferenceService notificationPreferenceService;
     private final Executor messageTaskExecutor;
+    private final LaneExecutor conversationLaneExecutor;
 
     @Override
     public MessageDto sendMessage(String conversationId, String senderId, MessageRequest request) {
@@ -62,11 +67,14 @@ public class MessageServiceImpl implements MessageService {
 
             Message savedMessage = messageRepository.save(message);
 
-            // Send real-time message to all participants
-            sendMessageToParticipants(conversationId, savedMessage);
-
-            // Send notifications to other participants
-            sendNotificationsToParticipants(conversationId, senderId, savedMessage);
+            // Notifications go behind this send on the conversation's lane rather than
+            // delaying the caller, and still reach recipients in message order
+            try {
+                conversationLaneExecutor.execute(conversationId,
+                        () -> sendNotificationsToParticipants(conversationId, senderId, savedMessage));
+            } catch (RejectedExecutionException e) {
+                sendNotificationsToParticipants(conversationId, senderId, savedMessage);
+            }
 
             return convertToDto(savedMessage);
         } catch (Exception e) {
@@ -75,17 +83,13 @@ public class MessageServiceImpl implements MessageService {
         }
     }
 
-    private void sendMessageToParticipants(String conversationId, Message message) {
-        String destination = "/topic/conversation/" + conversationId + "/messages";
-        messagingTemplate.convertAndSend(destination, convertToDto(message));
-    }
-
     private void sendNotificationsToParticipants(String conversationId, String senderId, Message message) {
         try {
             List<Participant> participants = participantRepository.findByConversationId(conversationId);
             
             for (Participant participant : participants) {
-                if (!participant.getUserId().equals(senderId)) {
+                if (!participant.getUserId().equals(senderId)
+                        && notificationPreferenceService.isEnabled(participant.getUserId(), NotificationType.NEW_MESSAGE, conversationId)) {
                     // Send notification to other participants
                     String title = "New Message";
                     String messageContent = message.getContent();
@@ -105,6 +109,20 @@ public class MessageServiceImpl implements MessageService {
         }
     }
 
+    // Call history entry, posted by the caller; no NEW_MESSAGE notifications
+    @Override
+    public MessageDto saveCallSummary(Call call) {
+        Message message = new Message();
+        message.setConversationId(call.getConversationId());
+        message.setSenderId(call.getCallerId());
+        message.setMessageType(MessageType.CALL);
+        message.setCallType(call.getCallType());
+        message.setCallStatus(call.getStatus().name());
+        message.setCallDuration(call.getDuration());
+        message.setSentAt(LocalDateTime.now());
+        return convertToDto(messageRepository.save(message));
+    }
+
     @Override
     public MessageDto getMessage(String messageId) {
         Message message = messageRepository.findById(messageId)
@@ -0,0 +1,173 @@
+package com.btalk.service.impl;
+
+import com.btalk.constants.NotificationType;
+import com.btalk.dto.NotificationPreferencesDto;
+import com.btalk.entity.NotificationPreference;
+import com.btalk.exceptions.ResourceNotFoundException;
+import com.btalk.repository.NotificationPreferenceRepository;
+import com.btalk.repository.ParticipantRepository;
+import com.btalk.service.NotificationPreferenceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class NotificationPreferenceServiceImpl implements NotificationPreferenceService {
+
+    // Types silenced by muting a conversation; membership and system notices still go through
+    private static final Set<NotificationType> CONVERSATION_MUTABLE_TYPES = EnumSet.of(
+            NotificationType.NEW_MESSAGE,
+            NotificationType.FILE_SHARED,
+            NotificationType.MESSAGE_REACTION);
+
+    private final NotificationPreferenceRepository notificationPreferenceRepository;
+    private final ParticipantRepository participantRepository;
+    private final int maxEntries;
+
+    // userId -> preferences, loaded on first use and replaced on every update;
+    // bounded, an arbitrary entry is dropped when it fills up
+    private final Map<String, CachedPreferences> cache = new ConcurrentHashMap<>();
+
+    // Bumped by every update, so a load that overlapped one is not cached
+    private final AtomicLong updates = new AtomicLong();
+
+    public NotificationPreferenceServiceImpl(NotificationPreferenceRepository notificationPreferenceRepository,
+                                             ParticipantRepository participantRepository,
+                                             @Value("${app.notifications.preference-cache-size:10000}") int maxEntries) {
+        this.notificationPreferenceRepository = notificationPreferenceRepository;
+        this.participantRepository = participantRepository;
+        this.maxEntries = Math.max(maxEntries, 1);
+    }
+
+    @Override
+    public boolean isEnabled(String userId, NotificationType type, String conversationId) {
+        if (userId == null || type == null) {
+            return true;
+        }
+        CachedPreferences preferences = cached(userId);
+        if ((preferences.disabledTypes & bit(type)) != 0) {
+            return false;
+        }
+        return conversationId == null
+                || !CONVERSATION_MUTABLE_TYPES.contains(type)
+                || !preferences.mutedConversationIds.contains(conversationId);
+    }
+
+    @Override
+    public NotificationPreferencesDto getPreferences(String userId) {
+        CachedPreferences preferences = cached(userId);
+        return NotificationPreferencesDto.builder()
+                .disabledTypes(toTypes(preferences.disabledTypes))
+                .mutedConversationIds(preferences.mutedConversationIds)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public NotificationPreferencesDto updateDisabledTypes(String userId, Set<NotificationType> disabledTypes) {
+        int mask = 0;
+        if (disabledTypes != null) {
+            for (NotificationType type : disabledTypes) {
+                mask |= bit(type);
+            }
+        }
+
+        NotificationPreference preference = notificationPreferenceRepository.findById(userId)
+                .orElseGet(() -> NotificationPreference.builder().userId(userId).build());
+        preference.setDisabledTypes(mask);
+        notificationPreferenceRepository.save(preference);
+
+        int disabledMask = mask;
+        cache.computeIfPresent(userId, (id, current) -> new CachedPreferences(disabledMask, current.mutedConversationIds));
+        updates.incrementAndGet();
+        return getPreferences(userId);
+    }
+
+    @Override
+    @Transactional
+    public void setConversationMuted(String userId, String conversationId, boolean muted) {
+        int updated = participantRepository.updateNotificationsMuted(conversationId, userId, muted);
+        if (updated == 0) {
+            throw new ResourceNotFoundException("User " + userId + " is not a participant of conversation " + conversationId);
+        }
+
+        cache.computeIfPresent(userId, (id, current) -> {
+            Set<String> mutedConversationIds = new HashSet<>(current.mutedConversationIds);
+            if (muted) {
+                mutedConversationIds.add(conversationId);
+            } else {
+                mutedConversationIds.remove(conversationId);
+            }
+            return new CachedPreferences(current.disabledTypes, Set.copyOf(mutedConversationIds));
+        });
+        updates.incrementAndGet();
+        log.info("Conversation {} {} for user {}", conversationId, muted ? "muted" : "unmuted", userId);
+    }
+
+    // Loads outside the map so no bin lock is held across the queries
+    private CachedPreferences cached(String userId) {
+        CachedPreferences preferences = cache.get(userId);
+        if (preferences != null) {
+            return preferences;
+        }
+        long seen = updates.get();
+        CachedPreferences loaded = load(userId);
+        if (updates.get() != seen) {
+            return loaded;
+        }
+        if (cache.size() >= maxEntries) {
+            Iterator<String> users = cache.keySet().iterator();
+            while (cache.size() >= maxEntries && users.hasNext()) {
+                users.next();
+                users.remove();
+            }
+        }
+        CachedPreferences raced = cache.putIfAbsent(userId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private CachedPreferences load(String userId) {
+        int disabledTypes = notificationPreferenceRepository.findById(userId)
+                .map(NotificationPreference::getDisabledTypes)
+                .orElse(0);
+        return new CachedPreferences(disabledTypes, loadMutedConversations(userId));
+    }
+
+    private Set<String> loadMutedConversations(String userId) {
+        return Set.copyOf(participantRepository.findMutedConversationIdsByUserId(userId));
+    }
+
+    private static int bit(NotificationType type) {
+        return 1 << type.ordinal();
+    }
+
+    private static Set<NotificationType> toTypes(int mask) {
+        Set<NotificationType> types = EnumSet.noneOf(NotificationType.class);
+        for (NotificationType type : NotificationType.values()) {
+            if ((mask & bit(type)) != 0) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    private static final class CachedPreferences {
+        private final int disabledTypes;
+        private final Set<String> mutedConversationIds;
+
+        private CachedPreferences(int disabledTypes, Set<String> mutedConversationIds) {
+            this.disabledTypes = disabledTypes;
+            this.mutedConversationIds = mutedConversationIds;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.btalk.service.impl;
 
+import com.btalk.dto.NotificationDigestDto;
 import com.btalk.dto.NotificationDto;
+import com.btalk.dto.NotificationFeedDto;
 
 import com.btalk.dto.NotificationRequest;
 import com.btalk.entity.Notification;
@@ -8,13 +10,19 @@ import com.btalk.entity.User;
 import com.btalk.constants.NotificationType;
 import com.btalk.repository.NotificationRepository;
 import com.btalk.repository.UserRepository;
+import com.btalk.service.NotificationPreferenceService;
 import com.btalk.service.NotificationService;
+import com.btalk.websocket.ConversationSubscriptionRegistry;
+import com.btalk.websocket.EncodedMessageSender;
+import com.btalk.websocket.NotificationDigestBuffer;
+import com.btalk.websocket.cluster.ClusterUserRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,9 +40,13 @@ public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final EncodedMessageSender encodedMessageSender;
     private final ObjectMapper objectMapper;
     private final Executor notificationTaskExecutor;
+    private final ConversationSubscriptionRegistry conversationSubscriptionRegistry;
+    private final NotificationDigestBuffer notificationDigestBuffer;
+    private final NotificationPreferenceService notificationPreferenceService;
+    private final ClusterUserRegistry clusterUserRegistry;
 
     @Override
     public NotificationDto createNotification(NotificationRequest request) {
@@ -73,13 +85,18 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
-    @Async("notificationTaskExecutor")
     public void createNotificationAsync(NotificationRequest request) {
-        try {
-            createNotification(request);
-        } catch (Exception e) {
-            log.error("Error creating async notification: {}", e.getMessage(), e);
+        // Filtered on the caller's thread so suppressed notifications never reach the executor
+        if (!shouldDeliver(request.getRecipientId(), request.getType(), request.getData())) {
+            return;
         }
+        notificationTaskExecutor.execute(() -> {
+            try {
+                createNotification(request);
+            } catch (Exception e) {
+                log.error("Error creating async notification: {}", e.getMessage(), e);
+            }
+        });
     }
 
     @Override
@@ -88,6 +105,26 @@ public class NotificationServiceImpl implements NotificationService {
         return notifications.map(this::convertToDto);
     }
 
+    @Override
+    public NotificationFeedDto getNotificationFeed(String userId, LocalDateTime before, String beforeId, int size) {
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<NotificationDto> rows = (before == null || beforeId == null)
+                ? notificationRepository.findFeedByRecipientId(userId, limit)
+                : notificationRepository.findFeedByRecipientIdBefore(userId, before, beforeId, limit);
+
+        boolean hasMore = rows.size() > size;
+        List<NotificationDto> page = hasMore ? rows.subList(0, size) : rows;
+        NotificationDto last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return NotificationFeedDto.builder()
+                .notifications(page)
+                .hasMore(hasMore)
+                .nextBefore(hasMore ? last.getCreatedAt() : null)
+                .nextBeforeId(hasMore ? last.getNotificationId() : null)
+                .build();
+    }
+
     @Override
     public List<NotificationDto> getUnreadNotifications(String userId) {
         List<Notification> notifications = notificationRepository.findUnreadByRecipientId(userId);
@@ -128,9 +165,16 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     public void sendRealTimeNotification(String recipientId, NotificationDto notification) {
         try {
+            if (!clusterUserRegistry.isUserConnected(recipientId)) {
+                // No live session: fold into the digest delivered on reconnect
+                notificationDigestBuffer.record(recipientId, notification, extractConversationId(notification.getData()));
+                log.debug("User {} is offline, notification added to digest", recipientId);
+                return;
+            }
+
             log.info("Sending real-time notification to user {}: {}", recipientId, notification.getTitle());
             String destination = "/user/" + recipientId + "/queue/notifications";
-            messagingTemplate.convertAndSend(destination, notification);
+            encodedMessageSender.send(destination, notification);
             log.info("Successfully sent notification to user {}", recipientId);
             
             // Send updated unread count
@@ -144,13 +188,33 @@ public class NotificationServiceImpl implements NotificationService {
         try {
             Long unreadCount = getUnreadCount(recipientId);
             String destination = "/user/" + recipientId + "/queue/unread-count";
-            messagingTemplate.convertAndSend(destination, unreadCount);
+            encodedMessageSender.send(destination, unreadCount);
             log.info("Successfully sent unread count update to user {}: {}", recipientId, unreadCount);
         } catch (Exception e) {
             log.error("Error sending unread count update to user {}: {}", recipientId, e.getMessage());
         }
     }
 
+    @Override
+    public NotificationDigestDto takeNotificationDigest(String userId) {
+        NotificationDigestDto digest = notificationDigestBuffer.drain(userId);
+        if (digest != null) {
+            digest.setUnreadCount(getUnreadCount(userId));
+            log.info("Delivering notification digest to user {}: {} notifications in {} groups",
+                    userId, digest.getTotalCount(), digest.getEntries().size());
+            return digest;
+        }
+        // No digest, or it expired or was evicted: point the client at the persisted feed
+        Long unreadCount = getUnreadCount(userId);
+        if (unreadCount == null || unreadCount == 0) {
+            return null;
+        }
+        return NotificationDigestDto.builder()
+                .entries(List.of())
+                .unreadCount(unreadCount)
+                .build();
+    }
+
     @Override
     public void sendNotificationToUser(String recipientId, String title, String message, NotificationType type, String data) {
         NotificationRequest request = NotificationRequest.builder()
@@ -165,21 +229,55 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
-    @Async("notificationTaskExecutor")
     public void sendNotificationToUserAsync(String recipientId, String title, String message, NotificationType type, String senderId, String data) {
+        if (!shouldDeliver(recipientId, type, data)) {
+            return;
+        }
+
+        NotificationRequest request = NotificationRequest.builder()
+                .recipientId(recipientId)
+                .senderId(senderId)
+                .title(title)
+                .message(message)
+                .type(type)
+                .data(data)
+                .build();
+
+        notificationTaskExecutor.execute(() -> {
+            try {
+                createNotification(request);
+            } catch (Exception e) {
+                log.error("Error sending async notification to user {}: {}", recipientId, e.getMessage(), e);
+            }
+        });
+    }
+
+    private boolean shouldDeliver(String recipientId, NotificationType type, String data) {
+        String conversationId = extractConversationId(data);
+        if (!notificationPreferenceService.isEnabled(recipientId, type, conversationId)) {
+            log.debug("Skipping {} notification for user {}: disabled or muted", type, recipientId);
+            return false;
+        }
+        // A recipient who has the conversation open already receives the message
+        // on its conversation topic, so a notification row and push are redundant
+        if (type == NotificationType.NEW_MESSAGE && conversationId != null
+                && conversationSubscriptionRegistry.isViewing(recipientId, conversationId)) {
+            log.debug("Skipping {} notification for user {}: conversation is open", type, recipientId);
+            return false;
+        }
+        return true;
+    }
+
+    private String extractConversationId(String data) {
+        if (data == null) {
+            return null;
+        }
         try {
-            NotificationRequest request = NotificationRequest.builder()
-                    .recipientId(recipientId)
-                    .senderId(senderId)
-                    .title(title)
-                    .message(message)
-                    .type(type)
-                    .data(data)
-                    .build();
-            
-            createNotification(request);
+            JsonNode conversationId = objectMapper.readTree(data).get("conversationId");
+            return conversationId != null ? conversationId.asText() : null;
         } catch (Exception e) {
-            log.error("Error sending async notification to user {}: {}", recipientId, e.getMessage(), e);
+            log.debug("Could not read conversationId from notification data: {}", e.getMessage());
+            return null;
         }
     }
 
@@ -0,0 +1,67 @@
+package com.btalk.service.impl;
+
+import com.btalk.dto.PresenceDto;
+import com.btalk.repository.UserRepository;
+import com.btalk.service.PresenceService;
+import com.btalk.websocket.PresenceRegistry;
+import com.btalk.websocket.PresenceWatchRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceServiceImpl implements PresenceService {
+
+    private final PresenceRegistry presenceRegistry;
+    private final PresenceWatchRegistry presenceWatchRegistry;
+    private final UserRepository userRepository;
+
+    @Override
+    public List<PresenceDto> getPresence(Collection<String> userIds) {
+        List<PresenceDto> result = new ArrayList<>(userIds.size());
+        Set<String> notInMemory = new LinkedHashSet<>();
+
+        // Users seen recently are answered from memory; only the rest cost a
+        // single bulk query for their persisted last-seen time
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            Instant lastSeen = presenceRegistry.getLastSeen(userId);
+            if (lastSeen == null) {
+                notInMemory.add(userId);
+                continue;
+            }
+            result.add(PresenceDto.builder()
+                    .userId(userId)
+                    .status(presenceRegistry.getStatus(userId))
+                    .lastSeenAt(LocalDateTime.ofInstant(lastSeen, ZoneId.systemDefault()))
+                    .build());
+        }
+
+        if (!notInMemory.isEmpty()) {
+            result.addAll(userRepository.findOfflinePresenceByIds(notInMemory));
+        }
+        return result;
+    }
+
+    @Override
+    public List<PresenceDto> watchPresence(String sessionId, String watcherId, Collection<String> userIds) {
+        Set<String> accepted = presenceWatchRegistry.watch(sessionId, watcherId, userIds);
+        log.debug("Session {} watches presence of {} users", sessionId, accepted.size());
+        return getPresence(accepted);
+    }
+
+    @Override
+    public void unwatchPresence(String sessionId, Collection<String> userIds) {
+        presenceWatchRegistry.unwatch(sessionId, userIds);
+    }
+}
@@ -6,19 +6,26 @@ import com.btalk.entity.User;
 import com.btalk.exceptions.ResourceNotFoundException;
 import com.btalk.repository.UserRepository;
 import com.btalk.service.UserService;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, JdbcTemplate jdbcTemplate) {
         this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -57,6 +64,28 @@ public class UserServiceImpl implements UserService {
         userRepository.updateUserStatus(userId, status);
     }
 
+    @Override
+    @Transactional
+    public void updateUserStatuses(Collection<String> userIds, UserStatus status) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userRepository.updateUserStatuses(userIds, status);
+    }
+
+    @Override
+    @Transactional
+    public void updateLastSeen(Map<String, LocalDateTime> lastSeenByUserId) {
+        if (lastSeenByUserId.isEmpty()) {
+            return;
+        }
+        // Values differ per row, so a JPQL bulk update does not fit; one JDBC batch does
+        List<Object[]> rows = lastSeenByUserId.entrySet().stream()
+                .map(e -> new Object[]{Timestamp.valueOf(e.getValue()), e.getKey()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("UPDATE users SET last_seen_at = ? WHERE user_id = ?", rows);
+    }
+
     public List<UserDto> searchUsersByName(String name) {
         return userRepository.searchByName(name).stream()
                 .map(this::convertToDto)
@@ -0,0 +1,76 @@
+package com.btalk.utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands tasks to a pool without ever running them on the submitting thread,
+ * for work triggered on the timing wheel, whose single thread must not block.
+ * The pool is expected to reject when saturated (AbortPolicy, not
+ * CallerRunsPolicy); a rejected task is retried from the wheel after
+ * {@code retryDelayMs}, then twice that, and so on, and dropped with a warning
+ * once {@code maxAttempts} submissions have failed.
+ */
+@Slf4j
+public class HandOffExecutor implements Executor {
+
+    private final String name;
+    private final Executor delegate;
+    private final TimingWheel timingWheel;
+    private final long retryDelayMs;
+    private final int maxAttempts;
+
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public HandOffExecutor(String name, Executor delegate, TimingWheel timingWheel, long retryDelayMs, int maxAttempts) {
+        if (retryDelayMs <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("retryDelayMs and maxAttempts must be positive");
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.timingWheel = timingWheel;
+        this.retryDelayMs = retryDelayMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task, 1);
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void submit(Runnable task, int attempt) {
+        try {
+            delegate.execute(task);
+            return;
+        } catch (RejectedExecutionException e) {
+            if (attempt >= maxAttempts) {
+                drop(attempt);
+                return;
+            }
+        }
+        retried.incrementAndGet();
+        try {
+            timingWheel.schedule(retryDelayMs * attempt, () -> submit(task, attempt + 1));
+        } catch (IllegalStateException e) {
+            // Wheel stopped on shutdown
+            drop(attempt);
+        }
+    }
+
+    private void drop(int attempts) {
+        long total = dropped.incrementAndGet();
+        log.warn("Dropped a {} task after {} rejected submissions ({} dropped so far)", name, attempts, total);
+    }
+}
@@ -0,0 +1,113 @@
+package com.btalk.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs tasks in submission order per key (a lane) while different keys run in
+ * parallel. Each lane is hashed onto one of a fixed set of single-threaded
+ * workers, so tasks of one lane never overlap and never reorder; lanes that
+ * share a worker simply take turns.
+ * <p>
+ * Every lane is bounded: once {@code laneCapacity} tasks of a key are queued or
+ * running, further submissions for that key are rejected instead of letting
+ * one busy conversation grow a worker's queue without limit.
+ */
+@Slf4j
+public class LaneExecutor {
+
+    private final ThreadPoolExecutor[] workers;
+    private final int laneCapacity;
+    // key -> tasks queued or running; entries disappear when a lane drains
+    private final Map<String, Integer> laneDepths = new ConcurrentHashMap<>();
+
+    public LaneExecutor(String threadNamePrefix, int workerCount, int laneCapacity) {
+        if (workerCount <= 0 || laneCapacity <= 0) {
+            throw new IllegalArgumentException("workerCount and laneCapacity must be positive");
+        }
+        this.laneCapacity = laneCapacity;
+        this.workers = new ThreadPoolExecutor[workerCount];
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+        }
+    }
+
+    /**
+     * Queues the task behind everything already submitted for the same key.
+     *
+     * @throws RejectedExecutionException if the lane is full or the executor is shut down
+     */
+    public void execute(String key, Runnable task) {
+        boolean[] accepted = {false};
+        laneDepths.compute(key, (k, depth) -> {
+            int current = depth != null ? depth : 0;
+            if (current >= laneCapacity) {
+                return depth;
+            }
+            accepted[0] = true;
+            return current + 1;
+        });
+        if (!accepted[0]) {
+            throw new RejectedExecutionException("Lane " + key + " already has " + laneCapacity + " pending tasks");
+        }
+
+        try {
+            workerFor(key).execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Lane task for {} failed: {}", key, e.getMessage(), e);
+                } finally {
+                    release(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(key);
+            throw e;
+        }
+    }
+
+    public int getLaneDepth(String key) {
+        return laneDepths.getOrDefault(key, 0);
+    }
+
+    public int getActiveLaneCount() {
+        return laneDepths.size();
+    }
+
+    // Tasks queued or running across all lanes
+    public int getPendingTaskCount() {
+        int pending = 0;
+        for (int depth : laneDepths.values()) {
+            pending += depth;
+        }
+        return pending;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    private ThreadPoolExecutor workerFor(String key) {
+        int hash = key.hashCode();
+        // Spread the high bits so similar ids do not cluster on one worker
+        hash ^= (hash >>> 16);
+        return workers[Math.floorMod(hash, workers.length)];
+    }
+
+    private void release(String key) {
+        laneDepths.computeIfPresent(key, (k, depth) -> depth > 1 ? depth - 1 : null);
+    }
+}
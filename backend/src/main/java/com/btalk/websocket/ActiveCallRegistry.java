@@ -0,0 +1,350 @@
+package com.btalk.websocket;
+
+import com.btalk.constants.CallStatus;
+import com.btalk.constants.CallType;
+import com.btalk.entity.Call;
+import com.btalk.utils.TimingWheel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory view of the calls that are ringing or ongoing on this node, and of
+ * the users taking part in them. A call moves through
+ * RINGING → ONGOING → ENDED, or from RINGING straight to REJECTED or MISSED;
+ * every transition is a compare-and-set on the call's state, so of two
+ * concurrent answers (or an answer racing a hang-up) exactly one wins.
+ * <p>
+ * A call leaves the registry on the transition that terminates it, and only
+ * the thread that made that transition gets the call back, so the final
+ * record is written once.
+ * <p>
+ * Every ringing call holds a timeout on the shared timing wheel; nobody
+ * answering within {@code ring-timeout-ms} makes it MISSED. Answering,
+ * rejecting or hanging up cancels the timeout in O(1). As a backstop for
+ * clients that vanish without hanging up, a sweep on the same wheel ends
+ * calls that have been ongoing for longer than {@code max-duration-ms}.
+ * <p>
+ * A user is claimed in the busy map before the call's state is changed and
+ * the state is checked again afterwards, while release changes the state
+ * before it drops the busy entries. Either release sees the claim, or the
+ * claimer sees the final state and backs out, so no busy entry outlives
+ * its call.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveCallRegistry {
+
+    private final TimingWheel timingWheel;
+
+    @Value("${app.calls.ring-timeout-ms:45000}")
+    private long ringTimeoutMs;
+
+    @Value("${app.calls.max-duration-ms:14400000}")
+    private long maxDurationMs;
+
+    @Value("${app.calls.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    // callId -> ringing or ongoing call
+    private final Map<String, ActiveCall> calls = new ConcurrentHashMap<>();
+
+    // userId -> callId of the call the user is ringing for or talking in
+    private final Map<String, String> busyUsers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void startSweep() {
+        timingWheel.schedule(sweepIntervalMs, this::sweep);
+    }
+
+    /**
+     * Adds a ringing call and marks its caller and, for private calls, its
+     * recipient busy.
+     *
+     * @param onTimeout called with the call if a timeout ends it: MISSED when
+     *                  nobody answers in time, ENDED when it outlives the
+     *                  maximum duration; runs on the timing wheel thread, so
+     *                  it must hand off work to an executor that never runs
+     *                  tasks on the caller, such as a HandOffExecutor
+     * @return false, with nothing registered, if the call id is taken or one of
+     *         the users is already in another call
+     */
+    public boolean register(ActiveCall call, Consumer<ActiveCall> onTimeout) {
+        if (calls.putIfAbsent(call.getCallId(), call) != null) {
+            return false;
+        }
+        List<String> claimed = new ArrayList<>(2);
+        for (String userId : call.initialParticipants()) {
+            if (busyUsers.putIfAbsent(userId, call.getCallId()) != null) {
+                claimed.forEach(id -> busyUsers.remove(id, call.getCallId()));
+                calls.remove(call.getCallId(), call);
+                return false;
+            }
+            claimed.add(userId);
+            call.participants.add(userId);
+        }
+        call.onTimeout = onTimeout;
+        call.ringTimeout = timingWheel.schedule(ringTimeoutMs, () -> {
+            ActiveCall missed = finishRinging(call.getCallId(), CallStatus.MISSED);
+            if (missed != null) {
+                onTimeout.accept(missed);
+            }
+        });
+        return true;
+    }
+
+    public boolean isBusy(String userId) {
+        return userId != null && busyUsers.containsKey(userId);
+    }
+
+    public ActiveCall get(String callId) {
+        return callId != null ? calls.get(callId) : null;
+    }
+
+    /**
+     * The call the user is ringing for or taking part in, or null.
+     */
+    public ActiveCall callOf(String userId) {
+        return userId != null ? get(busyUsers.get(userId)) : null;
+    }
+
+    public int getActiveCallCount() {
+        return calls.size();
+    }
+
+    /**
+     * Moves the call to ONGOING. A private call can be answered once; a group
+     * call stays answerable by further participants while it is ongoing.
+     *
+     * @return the call, or null if it is unknown, already answered (private),
+     *         already over, or the user is in another call
+     */
+    public ActiveCall answer(String callId, String userId) {
+        ActiveCall call = get(callId);
+        if (call == null) {
+            return null;
+        }
+        boolean claimed = false;
+        if (userId != null) {
+            String busyWith = busyUsers.putIfAbsent(userId, callId);
+            if (busyWith != null && !busyWith.equals(callId)) {
+                return null;
+            }
+            claimed = busyWith == null;
+            call.participants.add(userId);
+        }
+
+        if (call.state.compareAndSet(CallStatus.RINGING, CallStatus.ONGOING)) {
+            call.answeredAt = LocalDateTime.now();
+            call.cancelRingTimeout();
+            return call;
+        }
+        if (call.getCallType() == CallType.GROUP && call.state.get() == CallStatus.ONGOING) {
+            return call;
+        }
+        // Already answered (private) or over: undo the claim, release may have missed it
+        if (claimed) {
+            call.participants.remove(userId);
+            busyUsers.remove(userId, callId);
+        }
+        return null;
+    }
+
+    /**
+     * Takes one participant out of an ongoing group call without ending it.
+     *
+     * @return false if the call is not an ongoing group call or the user is
+     *         not in it
+     */
+    public boolean leave(String callId, String userId) {
+        ActiveCall call = get(callId);
+        if (call == null || call.getCallType() != CallType.GROUP || call.state.get() != CallStatus.ONGOING
+                || !call.participants.remove(userId)) {
+            return false;
+        }
+        busyUsers.remove(userId, callId);
+        return true;
+    }
+
+    /**
+     * Terminates a call still ringing with REJECTED or MISSED.
+     *
+     * @return the call if this invocation ended it, null otherwise
+     */
+    public ActiveCall finishRinging(String callId, CallStatus outcome) {
+        if (outcome != CallStatus.REJECTED && outcome != CallStatus.MISSED) {
+            throw new IllegalArgumentException("A ringing call cannot become " + outcome);
+        }
+        ActiveCall call = get(callId);
+        if (call == null || !call.state.compareAndSet(CallStatus.RINGING, outcome)) {
+            return null;
+        }
+        return release(call);
+    }
+
+    /**
+     * Hangs up: an ongoing call becomes ENDED, one nobody answered yet MISSED.
+     *
+     * @return the call if this invocation ended it, null otherwise
+     */
+    public ActiveCall hangUp(String callId) {
+        ActiveCall call = get(callId);
+        if (call == null) {
+            return null;
+        }
+        if (call.state.compareAndSet(CallStatus.ONGOING, CallStatus.ENDED)
+                || call.state.compareAndSet(CallStatus.RINGING, CallStatus.MISSED)) {
+            return release(call);
+        }
+        return null;
+    }
+
+    private void sweep() {
+        try {
+            sweepExpired();
+        } finally {
+            try {
+                timingWheel.schedule(sweepIntervalMs, this::sweep);
+            } catch (IllegalStateException e) {
+                // Wheel stopped on shutdown
+            }
+        }
+    }
+
+    // Ends calls ongoing for longer than the maximum duration; runs on the wheel thread,
+    // which only releases them here and leaves records and notifications to onTimeout
+    void sweepExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(maxDurationMs));
+        for (ActiveCall call : calls.values()) {
+            LocalDateTime answered = call.answeredAt;
+            if (answered == null || answered.isAfter(cutoff)
+                    || !call.state.compareAndSet(CallStatus.ONGOING, CallStatus.ENDED)) {
+                continue;
+            }
+            log.warn("Call {} exceeded the maximum duration of {} ms, ending it", call.getCallId(), maxDurationMs);
+            release(call);
+            Consumer<ActiveCall> onTimeout = call.onTimeout;
+            if (onTimeout == null) {
+                continue;
+            }
+            // One failing hand-off must not leave the remaining calls of this sweep unannounced
+            try {
+                onTimeout.accept(call);
+            } catch (RuntimeException e) {
+                log.error("Timeout handling failed for call {}", call.getCallId(), e);
+            }
+        }
+    }
+
+    private ActiveCall release(ActiveCall call) {
+        call.endedAt = LocalDateTime.now();
+        call.cancelRingTimeout();
+        calls.remove(call.getCallId(), call);
+        call.participants.forEach(userId -> busyUsers.remove(userId, call.getCallId()));
+        log.debug("Call {} finished as {}", call.getCallId(), call.getStatus());
+        return call;
+    }
+
+    public static final class ActiveCall {
+        private final String callId;
+        private final String callerId;
+        private final String recipientId;
+        private final String conversationId;
+        private final CallType callType;
+        private final LocalDateTime startTime = LocalDateTime.now();
+        private final AtomicReference<CallStatus> state = new AtomicReference<>(CallStatus.RINGING);
+        private final Set<String> participants = ConcurrentHashMap.newKeySet();
+        // Written by the thread that wins the transition, read after it
+        private volatile LocalDateTime answeredAt;
+        private volatile LocalDateTime endedAt;
+        private volatile TimingWheel.Timeout ringTimeout;
+        private volatile Consumer<ActiveCall> onTimeout;
+
+        public ActiveCall(String callId, String callerId, String recipientId, String conversationId, CallType callType) {
+            this.callId = callId;
+            this.callerId = callerId;
+            this.recipientId = recipientId;
+            this.conversationId = conversationId;
+            this.callType = callType;
+        }
+
+        private void cancelRingTimeout() {
+            TimingWheel.Timeout timeout = ringTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        private List<String> initialParticipants() {
+            return callType == CallType.PRIVATE && recipientId != null
+                    ? List.of(callerId, recipientId) : List.of(callerId);
+        }
+
+        public String getCallId() {
+            return callId;
+        }
+
+        public String getCallerId() {
+            return callerId;
+        }
+
+        public String getRecipientId() {
+            return recipientId;
+        }
+
+        public String getConversationId() {
+            return conversationId;
+        }
+
+        public CallType getCallType() {
+            return callType;
+        }
+
+        public CallStatus getStatus() {
+            return state.get();
+        }
+
+        // Users rung for or taking part in the call
+        public Set<String> getParticipants() {
+            return Set.copyOf(participants);
+        }
+
+        /**
+         * Seconds between answer and hang-up, 0 for a call that never connected.
+         */
+        public int getDurationSeconds() {
+            LocalDateTime answered = answeredAt;
+            LocalDateTime ended = endedAt;
+            return answered != null && ended != null ? (int) Duration.between(answered, ended).toSeconds() : 0;
+        }
+
+        public Call toEntity() {
+            Call call = new Call();
+            call.setCallId(callId);
+            call.setCallerId(callerId);
+            call.setRecipientId(recipientId);
+            call.setConversationId(conversationId);
+            call.setCallType(callType);
+            call.setStartTime(startTime);
+            call.setEndTime(endedAt);
+            call.setDuration(getDurationSeconds());
+            call.setStatus(state.get());
+            return call;
+        }
+    }
+}
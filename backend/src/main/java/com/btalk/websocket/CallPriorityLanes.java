@@ -0,0 +1,166 @@
+package com.btalk.websocket;
+
+import com.btalk.config.ExecutionMode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the executors of the STOMP client inbound and outbound channels.
+ * Call signaling ({@code /app/call/**} in, {@code /user/queue/call/**} and
+ * {@code /topic/call/**} out) runs on a small dedicated pool per channel, so
+ * OFFER/ANSWER/CANDIDATE frames never wait behind chat messages, read receipts
+ * or notifications queued by other sessions. Frames of one session still keep
+ * their order when the channels preserve it.
+ * <p>
+ * {@code websocket.channel.wait} records how long tasks sit in each lane
+ * before they run, which is the part of call-setup latency this controls.
+ */
+@Component
+@Slf4j
+public class CallPriorityLanes implements MeterBinder, DisposableBean {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<ThreadPoolTaskExecutor> pools = new ArrayList<>();
+
+    private final ExecutionMode executionMode;
+    private final boolean enabled;
+    private final String[] priorityDestinations;
+    private final int priorityThreads;
+
+    private PriorityChannelExecutor inbound;
+    private PriorityChannelExecutor outbound;
+    // The channels may be configured before or after the registry binds this
+    private MeterRegistry registry;
+
+    public CallPriorityLanes(ExecutionMode executionMode,
+                             @Value("${app.websocket.priority.enabled:true}") boolean enabled,
+                             @Value("${app.websocket.priority.destinations:/app/call/**,/user/**/queue/call/**,/queue/call/**,/topic/call/**}") String[] priorityDestinations,
+                             @Value("${app.websocket.priority.threads:2}") int priorityThreads) {
+        this.executionMode = executionMode;
+        this.enabled = enabled;
+        this.priorityDestinations = priorityDestinations;
+        this.priorityThreads = Math.max(priorityThreads, 1);
+    }
+
+    /**
+     * Executor for the client inbound channel, or null to keep Spring's default
+     * when neither priority lanes nor virtual threads are in use.
+     */
+    public synchronized Executor inboundExecutor() {
+        if (inbound == null && enabled) {
+            inbound = new PriorityChannelExecutor(regularExecutor("clientInboundChannel-"),
+                    priorityPool("clientInboundCall-"), this::isPriority);
+            bindWaitTimers("inbound", inbound);
+        }
+        return inbound != null ? inbound : virtualOrNull("clientInboundChannel-");
+    }
+
+    public synchronized Executor outboundExecutor() {
+        if (outbound == null && enabled) {
+            outbound = new PriorityChannelExecutor(regularExecutor("clientOutboundChannel-"),
+                    priorityPool("clientOutboundCall-"), this::isPriority);
+            bindWaitTimers("outbound", outbound);
+        }
+        return outbound != null ? outbound : virtualOrNull("clientOutboundChannel-");
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        bindWaitTimers("inbound", inbound);
+        bindWaitTimers("outbound", outbound);
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    boolean isPriority(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (matches(destination)) {
+            return true;
+        }
+        // Resolved user destinations (/queue/x-user{session}) also carry the /user/... form
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        return accessor != null && matches(accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION));
+    }
+
+    private boolean matches(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        for (String pattern : priorityDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Executor virtualOrNull(String threadNamePrefix) {
+        return executionMode.isVirtualThreads() ? executionMode.newVirtualExecutor(threadNamePrefix, 0) : null;
+    }
+
+    // Same sizing Spring uses for its own client channel pools
+    private Executor regularExecutor(String threadNamePrefix) {
+        if (executionMode.isVirtualThreads()) {
+            return executionMode.newVirtualExecutor(threadNamePrefix, 0);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        pools.add(executor);
+        return executor;
+    }
+
+    // Platform threads even in virtual mode, so the lane never competes for carrier threads
+    private Executor priorityPool(String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(priorityThreads);
+        executor.setMaxPoolSize(priorityThreads);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        pools.add(executor);
+        log.info("Call signaling lane {} with {} threads", threadNamePrefix, priorityThreads);
+        return executor;
+    }
+
+    private void bindWaitTimers(String channel, PriorityChannelExecutor executor) {
+        if (executor == null || registry == null) {
+            return;
+        }
+        executor.setWaitTimers(waitTimer(registry, channel, "regular"), waitTimer(registry, channel, "call"));
+    }
+
+    private static Timer waitTimer(MeterRegistry registry, String channel, String lane) {
+        return Timer.builder("websocket.channel.wait")
+                .description("Time a client channel task waits in its lane before running")
+                .tag("channel", channel)
+                .tag("lane", lane)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+}
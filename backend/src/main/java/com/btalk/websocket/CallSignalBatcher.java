@@ -0,0 +1,249 @@
+package com.btalk.websocket;
+
+import com.btalk.constants.SignalType;
+import com.btalk.dto.CallSignal;
+import com.btalk.utils.TimingWheel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Forwards WebRTC signals to their destination. With batching enabled, trickle
+ * ICE CANDIDATE signals are held per (call, sender, destination) for a few
+ * milliseconds and forwarded as one CANDIDATE signal whose {@code candidates}
+ * list carries them all; a batch also goes out early once it is full. Every
+ * other signal is forwarded at once, after flushing whatever candidates of
+ * the same sender and destination are still held, so the recipient sees
+ * signals in the order they were sent.
+ * <p>
+ * Per call it records the signals received and the frames forwarded
+ * ({@code call.signals.received} / {@code call.signals.forwarded}, one sample
+ * per call) and the time from the first OFFER to the first ANSWER
+ * ({@code call.setup.latency}). A call's figures are recorded on HANGUP or,
+ * failing that, {@code signal-stats-window-ms} after its first signal.
+ */
+@Component
+@Slf4j
+public class CallSignalBatcher implements MeterBinder {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TaskScheduler taskScheduler;
+    private final TimingWheel timingWheel;
+
+    private final boolean batchingEnabled;
+    private final long windowMs;
+    private final int maxCandidates;
+    private final long statsWindowMs;
+
+    // callId|callerId|destination -> candidates waiting to be forwarded
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+
+    // callId -> signaling figures not yet recorded
+    private final Map<String, CallStats> calls = new ConcurrentHashMap<>();
+
+    // Assigned once the registry binds this; nothing is recorded until then
+    private volatile MeterRegistry registry;
+    private final Map<SignalType, Counter> receivedByType = new EnumMap<>(SignalType.class);
+    private Counter forwardedFrames;
+    private DistributionSummary receivedPerCall;
+    private DistributionSummary forwardedPerCall;
+    private Timer setupLatency;
+
+    public CallSignalBatcher(SimpMessagingTemplate messagingTemplate,
+                             @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler,
+                             TimingWheel timingWheel,
+                             @Value("${app.calls.candidate-batching.enabled:false}") boolean batchingEnabled,
+                             @Value("${app.calls.candidate-batching.window-ms:20}") long windowMs,
+                             @Value("${app.calls.candidate-batching.max-candidates:16}") int maxCandidates,
+                             @Value("${app.calls.signal-stats-window-ms:60000}") long statsWindowMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.taskScheduler = taskScheduler;
+        this.timingWheel = timingWheel;
+        this.batchingEnabled = batchingEnabled;
+        this.windowMs = Math.max(windowMs, 1);
+        this.maxCandidates = Math.max(maxCandidates, 1);
+        this.statsWindowMs = statsWindowMs;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (SignalType type : SignalType.values()) {
+            receivedByType.put(type, Counter.builder("call.signals.received.total")
+                    .description("Call signals received from clients, by type")
+                    .tag("type", type.name().toLowerCase())
+                    .register(registry));
+        }
+        forwardedFrames = Counter.builder("call.signals.forwarded.total")
+                .description("Call signal frames forwarded, batched candidates counting once")
+                .register(registry);
+        receivedPerCall = DistributionSummary.builder("call.signals.received")
+                .description("Signals received per call")
+                .register(registry);
+        forwardedPerCall = DistributionSummary.builder("call.signals.forwarded")
+                .description("Signal frames forwarded per call")
+                .register(registry);
+        setupLatency = Timer.builder("call.setup.latency")
+                .description("Time from a call's first OFFER to its first ANSWER")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(registry);
+        // Published last: recording starts once this is set
+        this.registry = registry;
+    }
+
+    public boolean isBatchingEnabled() {
+        return batchingEnabled;
+    }
+
+    public void forward(String destination, CallSignal signal) {
+        CallStats stats = record(signal);
+        String key = signal.getCallId() + "|" + signal.getCallerId() + "|" + destination;
+
+        if (!batchingEnabled || signal.getType() != SignalType.CANDIDATE) {
+            flush(key);
+            send(destination, signal, stats);
+            return;
+        }
+
+        Batch[] full = new Batch[1];
+        boolean[] created = new boolean[1];
+        Batch batch = pending.compute(key, (k, existing) -> {
+            Batch result = existing != null ? existing : new Batch(destination, signal);
+            created[0] = existing == null;
+            result.candidates.add(signal.getPayload());
+            if (result.candidates.size() >= maxCandidates) {
+                full[0] = result;
+                return null;
+            }
+            return result;
+        });
+        if (full[0] != null) {
+            send(full[0]);
+        } else if (created[0]) {
+            taskScheduler.schedule(() -> flush(key, batch), Instant.now().plusMillis(windowMs));
+        }
+    }
+
+    private void flush(String key) {
+        Batch batch = pending.remove(key);
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    private void flush(String key, Batch batch) {
+        if (pending.remove(key, batch)) {
+            send(batch);
+        }
+    }
+
+    private void send(Batch batch) {
+        CallSignal first = batch.first;
+        CallSignal batched = new CallSignal();
+        batched.setCallId(first.getCallId());
+        batched.setCallerId(first.getCallerId());
+        batched.setRecipientId(first.getRecipientId());
+        batched.setConversationId(first.getConversationId());
+        batched.setParticipants(first.getParticipants());
+        batched.setType(SignalType.CANDIDATE);
+        batched.setCandidates(batch.candidates);
+        send(batch.destination, batched, first.getCallId() != null ? calls.get(first.getCallId()) : null);
+    }
+
+    private void send(String destination, CallSignal signal, CallStats stats) {
+        try {
+            messagingTemplate.convertAndSend(destination, signal);
+        } catch (Exception e) {
+            log.error("Failed to forward {} signal for call {}", signal.getType(), signal.getCallId(), e);
+            return;
+        }
+        if (registry != null) {
+            forwardedFrames.increment();
+        }
+        if (stats != null) {
+            stats.forwarded.incrementAndGet();
+        }
+    }
+
+    private CallStats record(CallSignal signal) {
+        if (registry == null) {
+            return null;
+        }
+        if (signal.getType() != null) {
+            receivedByType.get(signal.getType()).increment();
+        }
+        String callId = signal.getCallId();
+        if (callId == null) {
+            return null;
+        }
+        boolean[] created = new boolean[1];
+        CallStats stats = calls.computeIfAbsent(callId, id -> {
+            created[0] = true;
+            return new CallStats();
+        });
+        if (created[0]) {
+            timingWheel.schedule(statsWindowMs, () -> complete(callId, stats));
+        }
+        stats.received.incrementAndGet();
+        if (signal.getType() == SignalType.OFFER) {
+            stats.offerAt.compareAndSet(0, System.nanoTime());
+        } else if (signal.getType() == SignalType.ANSWER) {
+            // -1 marks the call answered, so renegotiation offers and answers are not timed
+            long offerAt = stats.offerAt.getAndSet(-1);
+            if (offerAt > 0) {
+                setupLatency.record(System.nanoTime() - offerAt, TimeUnit.NANOSECONDS);
+            }
+        } else if (signal.getType() == SignalType.HANGUP) {
+            complete(callId, stats);
+        }
+        return stats;
+    }
+
+    private void complete(String callId, CallStats stats) {
+        if (calls.remove(callId, stats)) {
+            receivedPerCall.record(stats.received.get());
+            forwardedPerCall.record(stats.forwarded.get());
+        }
+    }
+
+    private static final class Batch {
+        private final String destination;
+        private final CallSignal first;
+        private final List<Object> candidates = new ArrayList<>();
+
+        private Batch(String destination, CallSignal first) {
+            this.destination = destination;
+            this.first = first;
+        }
+    }
+
+    private static final class CallStats {
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicInteger forwarded = new AtomicInteger();
+        private final AtomicLong offerAt = new AtomicLong();
+    }
+}
@@ -0,0 +1,143 @@
+package com.btalk.websocket;
+
+import com.btalk.repository.ParticipantRepository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cached user-to-conversations and conversation-to-participants index for the
+ * hot WebSocket paths (presence fan-out, contact lookups) that only need ids.
+ * Entries are loaded lazily with id-only queries. ConversationServiceImpl
+ * applies single-member changes in place, so the entries stay warm for the
+ * subscription checks, and evicts them for bulk changes.
+ * <p>
+ * Each map holds at most {@code app.websocket.membership-cache-size} entries;
+ * an arbitrary one is dropped when it fills up. Queries run outside the maps,
+ * so a slow load never holds a bin lock that other keys hash to.
+ */
+@Component
+@Slf4j
+public class ConversationMembershipCache {
+
+    private final ParticipantRepository participantRepository;
+    private final int maxEntries;
+
+    // Bumped by every membership change, so a load that overlapped one is not cached
+    private final AtomicLong changes = new AtomicLong();
+
+    // userId -> conversationIds
+    private final Map<String, Set<String>> userConversations = new ConcurrentHashMap<>();
+
+    // conversationId -> participant userIds
+    private final Map<String, Set<String>> conversationParticipants = new ConcurrentHashMap<>();
+
+    public ConversationMembershipCache(ParticipantRepository participantRepository,
+                                       @Value("${app.websocket.membership-cache-size:50000}") int maxEntries) {
+        this.participantRepository = participantRepository;
+        this.maxEntries = Math.max(maxEntries, 1);
+    }
+
+    public Set<String> getConversationIds(String userId) {
+        return cached(userConversations, userId, participantRepository::findConversationIdsByUserId);
+    }
+
+    public Set<String> getParticipantIds(String conversationId) {
+        return cached(conversationParticipants, conversationId, participantRepository::findUserIdsByConversationId);
+    }
+
+    /**
+     * Everyone who shares at least one conversation with the user, excluding
+     * the user.
+     */
+    public Set<String> getContactIds(String userId) {
+        Set<String> contacts = new HashSet<>();
+        for (String conversationId : getConversationIds(userId)) {
+            contacts.addAll(getParticipantIds(conversationId));
+        }
+        contacts.remove(userId);
+        return contacts;
+    }
+
+    public boolean isParticipant(String userId, String conversationId) {
+        return getConversationIds(userId).contains(conversationId);
+    }
+
+    /**
+     * Applies a single join to whatever is already cached. Nothing is loaded:
+     * entries that are not cached pick the change up when they are.
+     */
+    public void addParticipant(String conversationId, String userId) {
+        changes.incrementAndGet();
+        conversationParticipants.computeIfPresent(conversationId, (id, users) -> with(users, userId));
+        userConversations.computeIfPresent(userId, (id, conversations) -> with(conversations, conversationId));
+    }
+
+    public void removeParticipant(String conversationId, String userId) {
+        changes.incrementAndGet();
+        conversationParticipants.computeIfPresent(conversationId, (id, users) -> without(users, userId));
+        userConversations.computeIfPresent(userId, (id, conversations) -> without(conversations, conversationId));
+    }
+
+    /**
+     * Drops cached membership for a conversation and the given users after
+     * participants were added, removed or the conversation was deleted.
+     */
+    public void evict(String conversationId, Collection<String> userIds) {
+        changes.incrementAndGet();
+        conversationParticipants.remove(conversationId);
+        userIds.forEach(userConversations::remove);
+        log.debug("Evicted membership cache for conversation {} and {} users", conversationId, userIds.size());
+    }
+
+    private Set<String> cached(Map<String, Set<String>> cache, String key, Function<String, Collection<String>> loader) {
+        Set<String> ids = cache.get(key);
+        if (ids != null) {
+            return ids;
+        }
+        long seen = changes.get();
+        Set<String> loaded = Set.copyOf(loader.apply(key));
+        if (changes.get() != seen) {
+            return loaded;
+        }
+        if (cache.size() >= maxEntries) {
+            Iterator<String> keys = cache.keySet().iterator();
+            while (cache.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        Set<String> raced = cache.putIfAbsent(key, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    // Cached sets are immutable so readers never see a partial update
+    private static Set<String> with(Set<String> values, String value) {
+        if (values.contains(value)) {
+            return values;
+        }
+        Set<String> copy = new HashSet<>(values);
+        copy.add(value);
+        return Set.copyOf(copy);
+    }
+
+    private static Set<String> without(Set<String> values, String value) {
+        if (!values.contains(value)) {
+            return values;
+        }
+        Set<String> copy = new HashSet<>(values);
+        copy.remove(value);
+        return Set.copyOf(copy);
+    }
+}
@@ -0,0 +1,120 @@
+package com.btalk.websocket;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live view of which users currently have a conversation open, i.e. hold a
+ * subscription to {@code /topic/conversation/{id}/messages}. Kept purely in
+ * memory from STOMP subscribe/unsubscribe/disconnect events.
+ */
+@Component
+@Slf4j
+public class ConversationSubscriptionRegistry {
+
+    private static final Pattern MESSAGES_DESTINATION = Pattern.compile("^/topic/conversation/([^/]+)/messages$");
+
+    // sessionId -> (subscriptionId -> conversationId)
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    // sessionId -> userId
+    private final Map<String, String> sessionUsers = new ConcurrentHashMap<>();
+
+    // conversationId -> (userId -> number of open subscriptions)
+    private final Map<String, Map<String, Integer>> viewers = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Principal user = headers.getUser();
+        String destination = headers.getDestination();
+        if (user == null || destination == null || headers.getSessionId() == null) {
+            return;
+        }
+
+        Matcher matcher = MESSAGES_DESTINATION.matcher(destination);
+        if (!matcher.matches()) {
+            return;
+        }
+
+        String conversationId = matcher.group(1);
+        String userId = user.getName();
+        sessionUsers.put(headers.getSessionId(), userId);
+        sessionSubscriptions
+                .computeIfAbsent(headers.getSessionId(), k -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), conversationId);
+        addViewer(conversationId, userId);
+        log.debug("User {} is viewing conversation {}", userId, conversationId);
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId();
+        if (sessionId == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+
+        Map<String, String> subscriptions = sessionSubscriptions.get(sessionId);
+        String userId = sessionUsers.get(sessionId);
+        if (subscriptions == null || userId == null) {
+            return;
+        }
+
+        String conversationId = subscriptions.remove(headers.getSubscriptionId());
+        if (conversationId != null) {
+            removeViewer(conversationId, userId);
+        }
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        Map<String, String> subscriptions = sessionSubscriptions.remove(sessionId);
+        String userId = sessionUsers.remove(sessionId);
+        if (subscriptions == null || userId == null) {
+            return;
+        }
+
+        subscriptions.values().forEach(conversationId -> removeViewer(conversationId, userId));
+    }
+
+    /**
+     * Whether the user has at least one live session subscribed to the
+     * conversation's message topic.
+     */
+    public boolean isViewing(String userId, String conversationId) {
+        if (userId == null || conversationId == null) {
+            return false;
+        }
+        Map<String, Integer> users = viewers.get(conversationId);
+        return users != null && users.containsKey(userId);
+    }
+
+    private void addViewer(String conversationId, String userId) {
+        viewers.compute(conversationId, (id, users) -> {
+            Map<String, Integer> result = users != null ? users : new ConcurrentHashMap<>();
+            result.merge(userId, 1, Integer::sum);
+            return result;
+        });
+    }
+
+    private void removeViewer(String conversationId, String userId) {
+        viewers.computeIfPresent(conversationId, (id, users) -> {
+            users.computeIfPresent(userId, (u, count) -> count > 1 ? count - 1 : null);
+            return users.isEmpty() ? null : users;
+        });
+    }
+}
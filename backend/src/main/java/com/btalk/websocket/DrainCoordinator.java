@@ -0,0 +1,226 @@
+package com.btalk.websocket;
+
+import com.btalk.utils.LaneExecutor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the node when the application context closes, before any lifecycle
+ * component stops. {@link ContextClosedEvent} is published ahead of the
+ * lifecycle shutdown, so the broker, the STOMP handler and the database are
+ * all still up while this runs:
+ * <ol>
+ *   <li>readiness goes to REFUSING_TRAFFIC and new handshakes get 503 with a
+ *       Retry-After header;</li>
+ *   <li>every session is given a random slot within {@code spread-ms} and told
+ *       on {@code /user/queue/server} to reconnect then. Sessions still open
+ *       shortly after their slot are closed with 1012 (service restart), so
+ *       clients that ignore the notice move on the same schedule;</li>
+ *   <li>the conversation lanes and the async pools get until the deadline to
+ *       finish what they already accepted.</li>
+ * </ol>
+ * Clients therefore leave spread over the window instead of all at once, and
+ * the next node sees a ramp rather than a reconnect spike.
+ */
+@Component
+@Slf4j
+public class DrainCoordinator implements HandshakeInterceptor {
+
+    public static final String NOTICE_DESTINATION = "/queue/server";
+
+    // Time a client gets to act on its notice before the server closes the session
+    private static final long CLOSE_GRACE_MS = 2000;
+    private static final long POLL_MS = 50;
+
+    private final WebSocketSessionTracker sessionTracker;
+    private final SimpUserRegistry simpUserRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LaneExecutor conversationLaneExecutor;
+    private final Map<String, Executor> asyncExecutors = new HashMap<>();
+
+    private final boolean enabled;
+    private final long spreadMs;
+    private final long deadlineMs;
+
+    private volatile boolean draining;
+
+    public DrainCoordinator(WebSocketSessionTracker sessionTracker,
+                            @Lazy SimpUserRegistry simpUserRegistry,
+                            @Lazy SimpMessagingTemplate messagingTemplate,
+                            LaneExecutor conversationLaneExecutor,
+                            @Qualifier("notificationTaskExecutor") Executor notificationTaskExecutor,
+                            @Qualifier("messageTaskExecutor") Executor messageTaskExecutor,
+                            @Qualifier("fileUploadTaskExecutor") Executor fileUploadTaskExecutor,
+                            @Qualifier("websocketTaskExecutor") Executor websocketTaskExecutor,
+                            @Qualifier("callRecordTaskExecutor") Executor callRecordTaskExecutor,
+                            @Qualifier("wheelTaskExecutor") Executor wheelTaskExecutor,
+                            @Value("${app.drain.enabled:true}") boolean enabled,
+                            @Value("${app.drain.spread-ms:10000}") long spreadMs,
+                            @Value("${app.drain.deadline-ms:20000}") long deadlineMs) {
+        this.sessionTracker = sessionTracker;
+        this.simpUserRegistry = simpUserRegistry;
+        this.messagingTemplate = messagingTemplate;
+        this.conversationLaneExecutor = conversationLaneExecutor;
+        this.asyncExecutors.put("notification", notificationTaskExecutor);
+        this.asyncExecutors.put("message", messageTaskExecutor);
+        this.asyncExecutors.put("fileUpload", fileUploadTaskExecutor);
+        this.asyncExecutors.put("websocket", websocketTaskExecutor);
+        this.asyncExecutors.put("callRecord", callRecordTaskExecutor);
+        this.asyncExecutors.put("wheel", wheelTaskExecutor);
+        this.enabled = enabled;
+        this.spreadMs = Math.max(spreadMs, 0);
+        this.deadlineMs = Math.max(deadlineMs, this.spreadMs + CLOSE_GRACE_MS);
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!draining) {
+            return true;
+        }
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return false;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    @EventListener
+    public void onContextClosed(ContextClosedEvent event) {
+        if (!enabled || draining) {
+            return;
+        }
+        draining = true;
+        long start = System.currentTimeMillis();
+        long deadline = start + deadlineMs;
+        AvailabilityChangeEvent.publish(event.getApplicationContext(), ReadinessState.REFUSING_TRAFFIC);
+
+        List<Departure> departures = scheduleDepartures(start);
+        log.info("Draining {} WebSocket sessions over {} ms", departures.size(), spreadMs);
+        for (Departure departure : departures) {
+            notify(departure);
+        }
+        for (Departure departure : departures) {
+            if (!sleepUntil(Math.min(departure.closeAt, deadline))) {
+                break;
+            }
+            sessionTracker.close(departure.sessionId, CloseStatus.SERVICE_RESTARTED);
+        }
+
+        while (System.currentTimeMillis() < deadline && hasPendingWork()) {
+            if (!sleepUntil(System.currentTimeMillis() + POLL_MS)) {
+                break;
+            }
+        }
+        if (hasPendingWork()) {
+            log.warn("Drain deadline reached with work pending: {} lane tasks, async executors busy: {}",
+                    conversationLaneExecutor.getPendingTaskCount(), busyExecutors());
+        } else {
+            log.info("Drain finished in {} ms", System.currentTimeMillis() - start);
+        }
+    }
+
+    private List<Departure> scheduleDepartures(long start) {
+        Map<String, String> sessionUsers = new HashMap<>();
+        for (SimpUser user : simpUserRegistry.getUsers()) {
+            for (SimpSession session : user.getSessions()) {
+                sessionUsers.put(session.getId(), user.getName());
+            }
+        }
+        List<Departure> departures = new ArrayList<>();
+        for (String sessionId : sessionTracker.getOpenSessionIds()) {
+            long offset = spreadMs > 0 ? ThreadLocalRandom.current().nextLong(spreadMs) : 0;
+            departures.add(new Departure(sessionId, sessionUsers.get(sessionId), offset, start + offset + CLOSE_GRACE_MS));
+        }
+        departures.sort(Comparator.comparingLong(Departure::closeAt));
+        return departures;
+    }
+
+    private void notify(Departure departure) {
+        if (departure.userId == null) {
+            return;
+        }
+        // Addressed to the one session, not every session of the user
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(departure.sessionId);
+        headers.setLeaveMutable(true);
+        try {
+            messagingTemplate.convertAndSendToUser(departure.userId, NOTICE_DESTINATION,
+                    Map.of("type", "RECONNECT", "reconnectInMs", departure.reconnectInMs),
+                    headers.getMessageHeaders());
+        } catch (Exception e) {
+            log.debug("Failed to send drain notice to session {}: {}", departure.sessionId, e.getMessage());
+        }
+    }
+
+    private boolean hasPendingWork() {
+        return conversationLaneExecutor.getPendingTaskCount() > 0 || !busyExecutors().isEmpty();
+    }
+
+    // Virtual-thread executors keep no queue; they wait for running tasks when closed
+    private List<String> busyExecutors() {
+        List<String> busy = new ArrayList<>();
+        asyncExecutors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolTaskExecutor pool
+                    && (pool.getActiveCount() > 0 || pool.getQueueSize() > 0)) {
+                busy.add(name);
+            }
+        });
+        return busy;
+    }
+
+    private static boolean sleepUntil(long time) {
+        long delay = time - System.currentTimeMillis();
+        if (delay <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Departure(String sessionId, String userId, long reconnectInMs, long closeAt) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.btalk.websocket;
+
+import java.util.Collection;
+
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sends payloads through the broker without converting them per send: a
+ * payload is encoded once by {@link PayloadEncoder} and the same bytes go to
+ * every destination. Destinations are the same ones accepted by
+ * {@link SimpMessagingTemplate#convertAndSend}, including {@code /user/{id}/...}.
+ */
+@Component
+@RequiredArgsConstructor
+public class EncodedMessageSender {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PayloadEncoder payloadEncoder;
+
+    public EncodedPayload encode(Object payload) {
+        return payloadEncoder.encode(payload);
+    }
+
+    public void send(String destination, Object payload) {
+        send(destination, payloadEncoder.encode(payload));
+    }
+
+    public void send(Collection<String> destinations, Object payload) {
+        EncodedPayload encoded = payloadEncoder.encode(payload);
+        for (String destination : destinations) {
+            send(destination, encoded);
+        }
+    }
+
+    public void send(String destination, EncodedPayload payload) {
+        // A fresh mutable header set per send; the payload bytes are shared
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(payload.getContentType());
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload.getBytes(), accessor.getMessageHeaders()));
+        payloadEncoder.recordDelivery();
+    }
+}
@@ -0,0 +1,38 @@
+package com.btalk.websocket;
+
+import org.springframework.util.MimeType;
+
+/**
+ * A payload serialized once, ready to be sent to any number of destinations
+ * without running Jackson again. The byte array is never modified after
+ * construction and is shared by every message built from it.
+ */
+public final class EncodedPayload {
+
+    private final Object source;
+    private final byte[] bytes;
+    private final MimeType contentType;
+
+    EncodedPayload(Object source, byte[] bytes, MimeType contentType) {
+        this.source = source;
+        this.bytes = bytes;
+        this.contentType = contentType;
+    }
+
+    public Object getSource() {
+        return source;
+    }
+
+    // Shared, do not modify
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    public MimeType getContentType() {
+        return contentType;
+    }
+
+    public int getSize() {
+        return bytes.length;
+    }
+}
@@ -0,0 +1,123 @@
+package com.btalk.websocket;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.btalk.dto.NotificationDigestDto;
+import com.btalk.dto.NotificationDto;
+
+/**
+ * Aggregates notifications for users without a live session, one entry per
+ * (type, conversation), so a reconnecting client gets a single digest frame
+ * instead of a replay of every notification and unread-count update.
+ * <p>
+ * The buffer is bounded: a digest older than {@code ttl-ms} is discarded, and
+ * once {@code max-users} digests are held expired ones are purged and, if that
+ * is not enough, an arbitrary one is dropped. Every notification is persisted
+ * before it reaches the buffer, so a user whose digest was dropped still finds
+ * it in the notification feed.
+ */
+@Component
+public class NotificationDigestBuffer {
+
+    // Further distinct (type, conversation) keys only bump the total count
+    private static final int MAX_ENTRIES_PER_USER = 100;
+
+    private final long ttlMs;
+    private final int maxUsers;
+
+    private final Map<String, Digest> digests = new ConcurrentHashMap<>();
+
+    public NotificationDigestBuffer(@Value("${app.notifications.digest.ttl-ms:86400000}") long ttlMs,
+                                    @Value("${app.notifications.digest.max-users:10000}") int maxUsers) {
+        this.ttlMs = ttlMs;
+        this.maxUsers = Math.max(maxUsers, 1);
+    }
+
+    public void record(String userId, NotificationDto notification, String conversationId) {
+        long now = System.currentTimeMillis();
+        if (!digests.containsKey(userId) && digests.size() >= maxUsers) {
+            evict(now);
+        }
+        // Appending inside compute makes it atomic with drain's remove of the same key
+        digests.compute(userId, (id, digest) -> {
+            Digest current = digest == null || digest.isExpired(now, ttlMs) ? new Digest(now) : digest;
+            current.add(notification, conversationId);
+            return current;
+        });
+    }
+
+    /**
+     * Removes and returns the user's pending digest, or {@code null} if nothing
+     * was recorded while they were offline or the digest has expired.
+     */
+    public NotificationDigestDto drain(String userId) {
+        Digest digest = digests.remove(userId);
+        if (digest == null || digest.isExpired(System.currentTimeMillis(), ttlMs)) {
+            return null;
+        }
+        // Removed from the map, so no record can touch it any more
+        return NotificationDigestDto.builder()
+                .entries(new ArrayList<>(digest.entries.values()))
+                .totalCount(digest.totalCount)
+                .since(digest.since)
+                .build();
+    }
+
+    public int getBufferedUserCount() {
+        return digests.size();
+    }
+
+    private void evict(long now) {
+        digests.values().removeIf(digest -> digest.isExpired(now, ttlMs));
+        Iterator<String> users = digests.keySet().iterator();
+        while (digests.size() >= maxUsers && users.hasNext()) {
+            users.next();
+            users.remove();
+        }
+    }
+
+    private static class Digest {
+        private final long createdAt;
+        private final LocalDateTime since = LocalDateTime.now();
+        private final Map<String, NotificationDigestDto.Entry> entries = new LinkedHashMap<>();
+        private int totalCount;
+
+        private Digest(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, long ttlMs) {
+            return now - createdAt >= ttlMs;
+        }
+
+        private void add(NotificationDto notification, String conversationId) {
+            totalCount++;
+            String key = notification.getType() + "|" + conversationId;
+            NotificationDigestDto.Entry entry = entries.get(key);
+            if (entry == null) {
+                if (entries.size() >= MAX_ENTRIES_PER_USER) {
+                    return;
+                }
+                entry = NotificationDigestDto.Entry.builder()
+                        .type(notification.getType())
+                        .conversationId(conversationId)
+                        .build();
+                entries.put(key, entry);
+            }
+            entry.setCount(entry.getCount() + 1);
+            entry.setLatestTitle(notification.getTitle());
+            entry.setLatestMessage(notification.getMessage());
+            entry.setLatestSenderId(notification.getSenderId());
+            entry.setLatestSenderName(notification.getSenderName());
+            entry.setLatestAt(notification.getCreatedAt());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.btalk.websocket;
+
+import com.btalk.dto.OutboundSessionStatsDto;
+
+import java.security.Principal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+/**
+ * Wraps every WebSocket session in an {@link OutboundBufferingSession} and
+ * decides, from configurable destination patterns, which outbound frames may
+ * be coalesced or dropped under backpressure. Anything not matched is
+ * critical and is never dropped.
+ */
+@Component
+public class OutboundBackpressureDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, OutboundBufferingSession> sessions = new ConcurrentHashMap<>();
+
+    private final Executor executor;
+    private final String[] coalesceDestinations;
+    private final String[] droppableDestinations;
+    private final int shedThresholdBytes;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitMs;
+
+    public OutboundBackpressureDecoratorFactory(
+            @Qualifier("websocketOutboundExecutor") Executor executor,
+            @Value("${app.websocket.outbound.coalesce-destinations:}") String[] coalesceDestinations,
+            @Value("${app.websocket.outbound.droppable-destinations:}") String[] droppableDestinations,
+            @Value("${app.websocket.outbound.shed-threshold-bytes:65536}") int shedThresholdBytes,
+            @Value("${app.websocket.send-buffer-size-limit:524288}") int bufferSizeLimit,
+            @Value("${app.websocket.send-time-limit-ms:10000}") long sendTimeLimitMs) {
+        this.executor = executor;
+        this.coalesceDestinations = coalesceDestinations;
+        this.droppableDestinations = droppableDestinations;
+        this.shedThresholdBytes = shedThresholdBytes;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                OutboundBufferingSession buffered = new OutboundBufferingSession(session, executor,
+                        OutboundBackpressureDecoratorFactory.this::classify,
+                        shedThresholdBytes, bufferSizeLimit, sendTimeLimitMs);
+                sessions.put(session.getId(), buffered);
+                super.afterConnectionEstablished(buffered);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(buffered(session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(buffered(session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                OutboundBufferingSession buffered = sessions.remove(session.getId());
+                if (buffered != null) {
+                    buffered.discard();
+                }
+                super.afterConnectionClosed(buffered != null ? buffered : session, closeStatus);
+            }
+        };
+    }
+
+    private WebSocketSession buffered(WebSocketSession session) {
+        OutboundBufferingSession buffered = sessions.get(session.getId());
+        return buffered != null ? buffered : session;
+    }
+
+    OutboundBufferingSession.Policy classify(String destination) {
+        for (String pattern : coalesceDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return OutboundBufferingSession.Policy.COALESCE;
+            }
+        }
+        for (String pattern : droppableDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return OutboundBufferingSession.Policy.DROP_OLDEST;
+            }
+        }
+        return OutboundBufferingSession.Policy.CRITICAL;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Bytes waiting in the outbound buffer of the fullest session.
+     */
+    public long getMaxQueuedBytes() {
+        long max = 0;
+        for (OutboundBufferingSession session : sessions.values()) {
+            max = Math.max(max, session.getQueuedBytes());
+        }
+        return max;
+    }
+
+    public long getTotalQueuedBytes() {
+        long total = 0;
+        for (OutboundBufferingSession session : sessions.values()) {
+            total += session.getQueuedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Current outbound state of every open session, deepest queues first.
+     */
+    public List<OutboundSessionStatsDto> getSessionStats() {
+        return sessions.values().stream()
+                .map(session -> {
+                    Principal principal = session.getPrincipal();
+                    return OutboundSessionStatsDto.builder()
+                            .sessionId(session.getId())
+                            .userId(principal != null ? principal.getName() : null)
+                            .queuedFrames(session.getQueuedFrames())
+                            .queuedBytes(session.getQueuedBytes())
+                            .sentFrames(session.getSentFrames())
+                            .droppedFrames(session.getDroppedFrames())
+                            .coalescedFrames(session.getCoalescedFrames())
+                            .sendInProgressMs(session.getSendInProgressMs())
+                            .build();
+                })
+                .sorted(Comparator.comparingLong(OutboundSessionStatsDto::getQueuedBytes).reversed())
+                .toList();
+    }
+}
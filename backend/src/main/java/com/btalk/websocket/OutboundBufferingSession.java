@@ -0,0 +1,313 @@
+package com.btalk.websocket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-session outbound queue. {@link #sendMessage} only enqueues and returns,
+ * so broker and outbound-channel threads never block on a slow socket; a task
+ * on the outbound executor drains the queue with at most one write in flight.
+ * <p>
+ * Frames are classified by their STOMP destination. Non-critical frames are
+ * coalesced or dropped oldest-first once the queue passes the shed threshold;
+ * critical frames (chat messages, call signaling, everything not configured
+ * otherwise) are never dropped, and if they alone exceed the buffer limit, or
+ * a single write takes longer than the send time limit, the session is closed
+ * so the client reconnects and resyncs instead of silently missing data.
+ * The same happens when the outbound executor is saturated and rejects the
+ * drain task: the session cannot be served, so it is closed rather than
+ * drained on the caller's thread.
+ */
+@Slf4j
+public class OutboundBufferingSession extends WebSocketSessionDecorator {
+
+    public enum Policy {
+        CRITICAL,
+        DROP_OLDEST,
+        COALESCE
+    }
+
+    // STOMP headers sit at the start of the frame; no need to look further
+    private static final int MAX_HEADER_SCAN = 1024;
+
+    private final Executor executor;
+    private final Function<String, Policy> classifier;
+    private final int shedThresholdBytes;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+
+    private final Deque<Frame> queue = new ArrayDeque<>();
+    // coalesce key (destination + subscription) -> frame still waiting in the queue
+    private final Map<String, Frame> pendingByKey = new HashMap<>();
+    private long queuedBytes;
+    private boolean draining;
+
+    private volatile long sendStartNanos;
+    private volatile boolean closing;
+
+    private final LongAdder sentFrames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder coalescedFrames = new LongAdder();
+
+    public OutboundBufferingSession(WebSocketSession delegate, Executor executor,
+                                    Function<String, Policy> classifier,
+                                    int shedThresholdBytes, int bufferSizeLimit, long sendTimeLimitMs) {
+        super(delegate);
+        this.executor = executor;
+        this.classifier = classifier;
+        this.shedThresholdBytes = shedThresholdBytes;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closing || !isOpen()) {
+            return;
+        }
+
+        long inFlightSince = sendStartNanos;
+        if (inFlightSince != 0 && System.nanoTime() - inFlightSince > sendTimeLimitNanos) {
+            closeUnreliable("send time limit exceeded");
+            return;
+        }
+
+        Frame frame = toFrame(message);
+        boolean overflow;
+        boolean startDrain;
+        synchronized (queue) {
+            enqueue(frame);
+            if (queuedBytes > shedThresholdBytes) {
+                shedNonCritical();
+            }
+            overflow = queuedBytes > bufferSizeLimit;
+            startDrain = !overflow && !draining;
+            if (startDrain) {
+                draining = true;
+            }
+        }
+
+        if (overflow) {
+            closeUnreliable("send buffer limit exceeded");
+        } else if (startDrain) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                closeUnreliable("outbound executor saturated");
+            }
+        }
+    }
+
+    private void enqueue(Frame frame) {
+        if (frame.key != null) {
+            Frame pending = pendingByKey.get(frame.key);
+            if (pending != null) {
+                // Only the latest value matters; keep the original queue position
+                queuedBytes += frame.size - pending.size;
+                pending.message = frame.message;
+                pending.size = frame.size;
+                coalescedFrames.increment();
+                return;
+            }
+            pendingByKey.put(frame.key, frame);
+        }
+        queue.add(frame);
+        queuedBytes += frame.size;
+    }
+
+    private void shedNonCritical() {
+        Iterator<Frame> iterator = queue.iterator();
+        while (queuedBytes > shedThresholdBytes && iterator.hasNext()) {
+            Frame frame = iterator.next();
+            if (frame.policy == Policy.CRITICAL) {
+                continue;
+            }
+            iterator.remove();
+            queuedBytes -= frame.size;
+            if (frame.key != null) {
+                pendingByKey.remove(frame.key);
+            }
+            droppedFrames.increment();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Frame frame;
+            synchronized (queue) {
+                frame = queue.poll();
+                if (frame == null || closing) {
+                    draining = false;
+                    return;
+                }
+                queuedBytes -= frame.size;
+                if (frame.key != null) {
+                    pendingByKey.remove(frame.key);
+                }
+            }
+
+            sendStartNanos = System.nanoTime();
+            try {
+                getDelegate().sendMessage(frame.message);
+                sentFrames.increment();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Outbound write to session {} failed: {}", getId(), e.getMessage());
+                closeUnreliable("write failed");
+            } finally {
+                sendStartNanos = 0;
+            }
+        }
+    }
+
+    private void closeUnreliable(String reason) {
+        synchronized (queue) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            queue.clear();
+            pendingByKey.clear();
+            queuedBytes = 0;
+        }
+        log.warn("Closing slow WebSocket session {} ({}): dropped={}, coalesced={}",
+                getId(), reason, droppedFrames.sum(), coalescedFrames.sum());
+        // Closing may wait on the write that is stuck, so keep it off the caller's thread
+        try {
+            executor.execute(this::closeDelegate);
+        } catch (RejectedExecutionException e) {
+            closeDelegate();
+        }
+    }
+
+    private void closeDelegate() {
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Failed to close WebSocket session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Discards anything still queued once the underlying connection is gone.
+     */
+    void discard() {
+        synchronized (queue) {
+            closing = true;
+            queue.clear();
+            pendingByKey.clear();
+            queuedBytes = 0;
+        }
+    }
+
+    public int getQueuedFrames() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public long getQueuedBytes() {
+        synchronized (queue) {
+            return queuedBytes;
+        }
+    }
+
+    public long getSentFrames() {
+        return sentFrames.sum();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    public long getCoalescedFrames() {
+        return coalescedFrames.sum();
+    }
+
+    /**
+     * How long the write currently in flight has been blocked, or 0 when idle.
+     */
+    public long getSendInProgressMs() {
+        long start = sendStartNanos;
+        return start == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private Frame toFrame(WebSocketMessage<?> message) {
+        Policy policy = Policy.CRITICAL;
+        String key = null;
+
+        String headers = headerBlock(message);
+        // Only broker MESSAGE frames are candidates; CONNECTED, RECEIPT, ERROR and heartbeats are not
+        if (headers != null && headers.startsWith("MESSAGE\n")) {
+            String destination = headerValue(headers, "destination");
+            if (destination != null) {
+                policy = classifier.apply(destination);
+                if (policy == Policy.COALESCE) {
+                    key = destination + '|' + headerValue(headers, "subscription");
+                }
+            }
+        }
+        return new Frame(message, policy, key);
+    }
+
+    private static String headerBlock(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            int end = payload.indexOf("\n\n");
+            return payload.substring(0, end >= 0 ? Math.min(end, MAX_HEADER_SCAN) : Math.min(payload.length(), MAX_HEADER_SCAN));
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            byte[] head = new byte[Math.min(payload.remaining(), MAX_HEADER_SCAN)];
+            payload.get(head);
+            String text = new String(head, StandardCharsets.ISO_8859_1);
+            int end = text.indexOf("\n\n");
+            return end >= 0 ? text.substring(0, end) : text;
+        }
+        return null;
+    }
+
+    private static String headerValue(String headers, String name) {
+        String prefix = "\n" + name + ":";
+        int start = headers.indexOf(prefix);
+        if (start < 0) {
+            return null;
+        }
+        start += prefix.length();
+        int end = headers.indexOf('\n', start);
+        return headers.substring(start, end >= 0 ? end : headers.length());
+    }
+
+    private static final class Frame {
+        private final Policy policy;
+        private final String key;
+        private WebSocketMessage<?> message;
+        private int size;
+
+        private Frame(WebSocketMessage<?> message, Policy policy, String key) {
+            this.message = message;
+            this.policy = policy;
+            this.key = key;
+            this.size = message.getPayloadLength();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.btalk.websocket;
+
+import com.btalk.dto.ConversationDto;
+import com.btalk.dto.MessageDto;
+import com.btalk.dto.NotificationDto;
+import com.btalk.dto.request.CallRequest;
+import com.btalk.dto.response.ApiResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Serializes outbound STOMP payloads with the application's ObjectMapper,
+ * producing the same JSON the broker's message converter would. Writers are
+ * resolved once per payload type and reused; the types on the hot send paths
+ * are prepared up front.
+ */
+@Component
+public class PayloadEncoder {
+
+    private static final MimeType TEXT_PLAIN_UTF8 = new MimeType(MimeTypeUtils.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private final LongAdder encodedPayloads = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+
+    public PayloadEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (Class<?> type : new Class<?>[]{ApiResponse.class, MessageDto.class, ConversationDto.class,
+                NotificationDto.class, CallRequest.class, Long.class}) {
+            writerFor(type);
+        }
+    }
+
+    public EncodedPayload encode(Object payload) {
+        if (payload instanceof EncodedPayload encoded) {
+            return encoded;
+        }
+        long start = System.nanoTime();
+        try {
+            EncodedPayload encoded;
+            if (payload instanceof String text) {
+                // Matches StringMessageConverter, which takes precedence over Jackson for strings
+                encoded = new EncodedPayload(text, text.getBytes(StandardCharsets.UTF_8), TEXT_PLAIN_UTF8);
+            } else {
+                byte[] bytes = writerFor(payload.getClass()).writeValueAsBytes(payload);
+                encoded = new EncodedPayload(payload, bytes, MimeTypeUtils.APPLICATION_JSON);
+            }
+            return encoded;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to encode " + payload.getClass().getSimpleName(), e);
+        } finally {
+            encodeNanos.add(System.nanoTime() - start);
+            encodedPayloads.increment();
+        }
+    }
+
+    public ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    void recordDelivery() {
+        deliveries.increment();
+    }
+
+    public long getEncodedPayloads() {
+        return encodedPayloads.sum();
+    }
+
+    public long getDeliveries() {
+        return deliveries.sum();
+    }
+
+    /**
+     * Total time spent serializing. Encoding is pure in-memory work, so this is
+     * effectively CPU time.
+     */
+    public long getEncodeNanos() {
+        return encodeNanos.sum();
+    }
+}
@@ -0,0 +1,27 @@
+package com.btalk.websocket;
+
+/**
+ * Encoding of outbound STOMP message bodies, chosen per session at CONNECT
+ * with the {@code payload-format} header. JSON is the default.
+ */
+public enum PayloadFormat {
+    JSON,
+    CBOR,
+    SMILE;
+
+    public static PayloadFormat fromHeader(String value) {
+        if (value == null) {
+            return JSON;
+        }
+        for (PayloadFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+
+    public String headerValue() {
+        return name().toLowerCase();
+    }
+}
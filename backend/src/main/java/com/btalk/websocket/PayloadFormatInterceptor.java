@@ -0,0 +1,106 @@
+package com.btalk.websocket;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Re-encodes JSON message bodies on the client outbound channel for sessions
+ * that negotiated CBOR or Smile.
+ * <p>
+ * The broker hands the same payload array to every subscriber of a
+ * destination, so the binary form is cached per payload instance (weakly, by
+ * identity) and each payload is transcoded at most once per format no matter
+ * how many sessions receive it. Binary frames go out as
+ * {@code application/octet-stream}, which is what makes Spring send them as
+ * WebSocket binary frames, with the format in the {@code payload-format}
+ * header.
+ */
+@Component
+@Slf4j
+public class PayloadFormatInterceptor implements ChannelInterceptor {
+
+    private final PayloadFormatRegistry payloadFormatRegistry;
+    private final ObjectMapper jsonMapper;
+    private final Map<PayloadFormat, ObjectMapper> binaryMappers = new EnumMap<>(PayloadFormat.class);
+    // payload array (identity) -> encoded form, one map per binary format
+    private final Map<PayloadFormat, Map<byte[], byte[]>> encoded = new EnumMap<>(PayloadFormat.class);
+
+    public PayloadFormatInterceptor(PayloadFormatRegistry payloadFormatRegistry, ObjectMapper objectMapper) {
+        this.payloadFormatRegistry = payloadFormatRegistry;
+        this.jsonMapper = objectMapper;
+        binaryMappers.put(PayloadFormat.CBOR, new CBORMapper());
+        binaryMappers.put(PayloadFormat.SMILE, new SmileMapper());
+        for (PayloadFormat format : binaryMappers.keySet()) {
+            encoded.put(format, Collections.synchronizedMap(new WeakHashMap<>()));
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!payloadFormatRegistry.hasBinarySessions()
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+
+        PayloadFormat format = payloadFormatRegistry.getFormat(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        MimeType contentType = contentType(message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        if (format == PayloadFormat.JSON || contentType == null
+                || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+
+        byte[] binary;
+        try {
+            binary = transcode(format, json);
+        } catch (IOException e) {
+            log.warn("Failed to encode payload as {}, sending JSON: {}", format, e.getMessage());
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(PayloadFormatRegistry.FORMAT_HEADER, format.headerValue());
+        return MessageBuilder.createMessage(binary, accessor.getMessageHeaders());
+    }
+
+    private static MimeType contentType(Object header) {
+        if (header instanceof MimeType mimeType) {
+            return mimeType;
+        }
+        return header instanceof String value ? MimeTypeUtils.parseMimeType(value) : null;
+    }
+
+    private byte[] transcode(PayloadFormat format, byte[] json) throws IOException {
+        Map<byte[], byte[]> cache = encoded.get(format);
+        byte[] binary = cache.get(json);
+        if (binary == null) {
+            // Racing senders may both transcode; the result is identical either way
+            JsonNode tree = jsonMapper.readTree(json);
+            binary = binaryMappers.get(format).writeValueAsBytes(tree);
+            cache.put(json, binary);
+        }
+        return binary;
+    }
+}
@@ -0,0 +1,58 @@
+package com.btalk.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers which sessions asked for a binary payload format at CONNECT.
+ * Only plain WebSocket sessions can carry binary frames; SockJS sessions and
+ * sessions that did not ask stay on JSON and are not tracked at all.
+ */
+@Component
+@Slf4j
+public class PayloadFormatRegistry {
+
+    public static final String FORMAT_HEADER = "payload-format";
+
+    // Session attribute set by WebSocketSessionTracker for non-SockJS sessions
+    public static final String BINARY_CAPABLE_ATTRIBUTE = "binaryFramesSupported";
+
+    private final Map<String, PayloadFormat> formats = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void handleConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        PayloadFormat requested = PayloadFormat.fromHeader(accessor.getFirstNativeHeader(FORMAT_HEADER));
+        if (requested == PayloadFormat.JSON || accessor.getSessionId() == null) {
+            return;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE))) {
+            log.debug("Session {} asked for {} over a text-only transport, using JSON", accessor.getSessionId(), requested);
+            return;
+        }
+        formats.put(accessor.getSessionId(), requested);
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        formats.remove(event.getSessionId());
+    }
+
+    public PayloadFormat getFormat(String sessionId) {
+        return sessionId != null ? formats.getOrDefault(sessionId, PayloadFormat.JSON) : PayloadFormat.JSON;
+    }
+
+    public boolean hasBinarySessions() {
+        return !formats.isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+package com.btalk.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Feeds inbound STOMP traffic into the presence registry. Every frame,
+ * including heartbeats, proves the session is alive; only SEND and SUBSCRIBE
+ * frames count as user activity for idle/away detection.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceActivityInterceptor implements ChannelInterceptor {
+
+    private final PresenceRegistry presenceRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.MESSAGE || type == SimpMessageType.SUBSCRIBE) {
+            presenceRegistry.recordActivity(sessionId);
+        } else {
+            presenceRegistry.recordHeartbeat(sessionId);
+        }
+        return message;
+    }
+}
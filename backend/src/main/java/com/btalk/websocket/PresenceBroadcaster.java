@@ -0,0 +1,78 @@
+package com.btalk.websocket;
+
+import com.btalk.constants.UserStatus;
+import com.btalk.dto.PresenceDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans a presence transition out to every conversation the user belongs to.
+ * Each conversation topic gets one frame whose body is just the user id, so
+ * the cost is one cached id lookup plus one send per conversation. Sessions
+ * that explicitly watch the user additionally get a one-element diff on
+ * {@code /user/queue/presence}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceBroadcaster {
+
+    private final ConversationMembershipCache membershipCache;
+    private final PresenceWatchRegistry presenceWatchRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public void broadcast(String userId, UserStatus status) {
+        String suffix = switch (status) {
+            case OFFLINE -> "/user-offline";
+            case AWAY -> "/user-away";
+            default -> "/user-online";
+        };
+        try {
+            for (String conversationId : membershipCache.getConversationIds(userId)) {
+                try {
+                    messagingTemplate.convertAndSend("/topic/conversation/" + conversationId + suffix, userId);
+                } catch (Exception e) {
+                    log.error("Failed to send {} presence for conversation {}: {}", status, conversationId, e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to fan out {} presence for user {}: {}", status, userId, e.getMessage());
+        }
+
+        sendToWatchers(userId, status);
+    }
+
+    private void sendToWatchers(String userId, UserStatus status) {
+        Map<String, String> watchers = presenceWatchRegistry.getWatchers(userId);
+        if (watchers.isEmpty()) {
+            return;
+        }
+
+        List<PresenceDto> diff = List.of(new PresenceDto(userId, status, LocalDateTime.now()));
+        watchers.forEach((sessionId, watcherId) -> {
+            try {
+                messagingTemplate.convertAndSendToUser(watcherId, "/queue/presence", diff, sessionHeaders(sessionId));
+            } catch (Exception e) {
+                log.error("Failed to send presence diff to session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    // Targets a single session of the watcher rather than all of their sessions
+    private static Map<String, Object> sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+}
@@ -0,0 +1,398 @@
+package com.btalk.websocket;
+
+import com.btalk.constants.UserStatus;
+import com.btalk.service.UserService;
+import com.btalk.utils.TimingWheel;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory source of truth for who is online. Tracks the live STOMP sessions
+ * of every user so that a second tab closing does not mark the user offline,
+ * and only reports a transition on the first connect and the last disconnect.
+ * Status changes are coalesced per user and written to the users table in
+ * periodic batches instead of on every connect/disconnect.
+ * <p>
+ * Going offline is debounced: after the last session closes the user stays
+ * online for a grace period, and a reconnect within it produces no event and
+ * no write at all.
+ * <p>
+ * Timers run on the shared timing wheel and are checked lazily: a check that
+ * fires early because of later activity simply re-arms itself for the
+ * remaining time, so inbound frames never touch the wheel. A user with no
+ * SEND/SUBSCRIBE activity for {@code away-after-ms} becomes AWAY, and a
+ * session that negotiated heartbeats but has been silent for
+ * {@code dead-after-ms} is closed as half-open.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceRegistry {
+
+    private final UserService userService;
+    private final PresenceBroadcaster presenceBroadcaster;
+    private final TimingWheel timingWheel;
+    private final WebSocketSessionTracker sessionTracker;
+    // Fan-outs triggered on the wheel thread run here; never on the wheel itself
+    private final Executor wheelHandOffExecutor;
+
+    @Value("${app.presence.offline-grace-ms:5000}")
+    private long offlineGraceMs;
+
+    @Value("${app.presence.away-after-ms:300000}")
+    private long awayAfterMs;
+
+    @Value("${app.presence.dead-after-ms:30000}")
+    private long deadAfterMs;
+
+    // userId -> live sessions and activity
+    private final Map<String, Presence> presences = new ConcurrentHashMap<>();
+
+    // sessionId -> per-session liveness
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    // userId -> latest status not yet written to the database
+    private final Map<String, UserStatus> pendingStatuses = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a session for the user.
+     *
+     * @param clientHeartbeatMs the heartbeat interval the client promised to send
+     *                          at in its CONNECT frame, 0 if it sends none
+     * @return true if the user just came online, false if the user already had
+     *         a live session or reconnected within the offline grace period
+     */
+    public boolean connect(String userId, String sessionId, long clientHeartbeatMs) {
+        long now = System.currentTimeMillis();
+        SessionState state = new SessionState(userId, now);
+        sessions.put(sessionId, state);
+
+        boolean[] cameOnline = new boolean[1];
+        boolean[] cameBack = new boolean[1];
+        Presence presence = presences.compute(userId, (id, existing) -> {
+            Presence result = existing != null ? existing : new Presence();
+            cameOnline[0] = result.sessionIds.isEmpty() && result.offlineTimeout == null;
+            cameBack[0] = !cameOnline[0] && result.status == UserStatus.AWAY;
+            if (result.offlineTimeout != null) {
+                result.offlineTimeout.cancel();
+                result.offlineTimeout = null;
+            }
+            result.sessionIds.add(sessionId);
+            result.status = UserStatus.ONLINE;
+            result.lastActivity = now;
+            result.lastSeen = now;
+            if (cameOnline[0] || cameBack[0]) {
+                result.awayCheckGeneration++;
+            }
+            return result;
+        });
+
+        if (clientHeartbeatMs > 0) {
+            long timeout = Math.max(deadAfterMs, clientHeartbeatMs * 3);
+            timingWheel.schedule(timeout, () -> checkSession(sessionId, timeout));
+        }
+
+        if (cameOnline[0] || cameBack[0]) {
+            scheduleAwayCheck(userId, presence.awayCheckGeneration, awayAfterMs);
+            pendingStatuses.put(userId, UserStatus.ONLINE);
+            presenceBroadcaster.broadcast(userId, UserStatus.ONLINE);
+        }
+        return cameOnline[0];
+    }
+
+    /**
+     * Removes a session for the user. Safe to call more than once for the same
+     * session, as Spring may publish several disconnect events per session.
+     * Closing the last session starts the offline grace period.
+     *
+     * @return true if this was the user's last live session
+     */
+    public boolean disconnect(String userId, String sessionId) {
+        sessions.remove(sessionId);
+
+        boolean[] lastSession = new boolean[1];
+        presences.computeIfPresent(userId, (id, presence) -> {
+            lastSession[0] = presence.sessionIds.remove(sessionId) && presence.sessionIds.isEmpty();
+            if (lastSession[0]) {
+                presence.offlineTimeout = timingWheel.schedule(offlineGraceMs, () -> expireOfflineGracePeriod(userId));
+            }
+            presence.lastSeen = System.currentTimeMillis();
+            return presence;
+        });
+        return lastSession[0];
+    }
+
+    /**
+     * Any inbound frame on the session, heartbeats included.
+     */
+    public void recordHeartbeat(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        if (state != null) {
+            state.lastRead = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * A SEND or SUBSCRIBE frame, i.e. the user is actually doing something.
+     */
+    public void recordActivity(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        if (state == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        state.lastRead = now;
+
+        Presence presence = presences.get(state.userId);
+        if (presence == null) {
+            return;
+        }
+        presence.lastActivity = now;
+        presence.lastSeen = now;
+        if (presence.status == UserStatus.AWAY) {
+            markActive(state.userId);
+        }
+    }
+
+    public boolean isOnline(String userId) {
+        Presence presence = presences.get(userId);
+        return presence != null && (!presence.sessionIds.isEmpty() || presence.offlineTimeout != null);
+    }
+
+    public UserStatus getStatus(String userId) {
+        Presence presence = presences.get(userId);
+        if (presence == null || (presence.sessionIds.isEmpty() && presence.offlineTimeout == null)) {
+            return UserStatus.OFFLINE;
+        }
+        return presence.status;
+    }
+
+    public int getSessionCount(String userId) {
+        Presence presence = presences.get(userId);
+        return presence != null ? presence.sessionIds.size() : 0;
+    }
+
+    /**
+     * Last connect, disconnect or activity seen for the user on this node, or
+     * null if the user has not been seen since startup or the last flush
+     * after going offline; the users table has the value in that case.
+     */
+    public Instant getLastSeen(String userId) {
+        Presence presence = presences.get(userId);
+        return presence != null ? Instant.ofEpochMilli(presence.lastSeen) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.flush-interval-ms:2000}")
+    public void flushPendingStatuses() {
+        if (pendingStatuses.isEmpty()) {
+            return;
+        }
+
+        Map<UserStatus, List<String>> byStatus = new EnumMap<>(UserStatus.class);
+        for (String userId : new ArrayList<>(pendingStatuses.keySet())) {
+            UserStatus status = pendingStatuses.remove(userId);
+            if (status != null) {
+                byStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(userId);
+            }
+        }
+
+        byStatus.forEach((status, userIds) -> {
+            try {
+                userService.updateUserStatuses(userIds, status);
+                log.debug("Flushed {} presence changes to {}", userIds.size(), status);
+            } catch (Exception e) {
+                log.error("Failed to flush {} presence changes to {}: {}", userIds.size(), status, e.getMessage());
+                // Re-queue unless a newer transition arrived in the meantime
+                userIds.forEach(userId -> pendingStatuses.putIfAbsent(userId, status));
+            }
+        });
+    }
+
+    /**
+     * Writes last-seen times that changed since the previous flush in one
+     * batch, then drops fully offline users whose last-seen is persisted so
+     * the map only holds users seen recently.
+     */
+    @Scheduled(fixedDelayString = "${app.presence.last-seen-flush-interval-ms:60000}")
+    public void flushLastSeen() {
+        Map<String, Long> changed = new HashMap<>();
+        presences.forEach((userId, presence) -> {
+            long lastSeen = presence.lastSeen;
+            if (lastSeen != presence.lastSeenFlushed) {
+                changed.put(userId, lastSeen);
+            }
+        });
+
+        if (!changed.isEmpty()) {
+            Map<String, LocalDateTime> lastSeenTimes = new HashMap<>();
+            changed.forEach((userId, lastSeen) -> lastSeenTimes.put(userId,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeen), ZoneId.systemDefault())));
+            try {
+                userService.updateLastSeen(lastSeenTimes);
+                log.debug("Flushed last-seen for {} users", changed.size());
+            } catch (Exception e) {
+                log.error("Failed to flush last-seen for {} users: {}", changed.size(), e.getMessage());
+                return;
+            }
+        }
+
+        changed.forEach((userId, lastSeen) -> presences.computeIfPresent(userId, (id, presence) -> {
+            presence.lastSeenFlushed = lastSeen;
+            return presence;
+        }));
+        // Checked and removed under the key's lock, so a concurrent connect either
+        // lands first and keeps the entry or finds it gone and starts a new one
+        for (String userId : new ArrayList<>(presences.keySet())) {
+            presences.computeIfPresent(userId, (id, presence) -> isEvictable(presence) ? null : presence);
+        }
+    }
+
+    private static boolean isEvictable(Presence presence) {
+        return presence.sessionIds.isEmpty() && presence.offlineTimeout == null
+                && presence.lastSeen == presence.lastSeenFlushed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPendingStatuses();
+        flushLastSeen();
+    }
+
+    private void expireOfflineGracePeriod(String userId) {
+        boolean[] wentOffline = new boolean[1];
+        presences.computeIfPresent(userId, (id, presence) -> {
+            // A reconnect may have raced the timer
+            if (presence.sessionIds.isEmpty() && presence.offlineTimeout != null) {
+                presence.offlineTimeout = null;
+                presence.status = UserStatus.OFFLINE;
+                wentOffline[0] = true;
+            }
+            return presence;
+        });
+
+        if (wentOffline[0]) {
+            log.info("User went offline: {}", userId);
+            pendingStatuses.put(userId, UserStatus.OFFLINE);
+            broadcastFromWheel(userId, UserStatus.OFFLINE);
+        }
+    }
+
+    private void scheduleAwayCheck(String userId, long generation, long delayMs) {
+        timingWheel.schedule(delayMs, () -> checkAway(userId, generation));
+    }
+
+    private void checkAway(String userId, long generation) {
+        Presence presence = presences.get(userId);
+        if (presence == null || presence.awayCheckGeneration != generation || presence.status != UserStatus.ONLINE) {
+            return;
+        }
+
+        long idle = System.currentTimeMillis() - presence.lastActivity;
+        if (idle < awayAfterMs) {
+            scheduleAwayCheck(userId, generation, awayAfterMs - idle);
+            return;
+        }
+
+        boolean[] wentAway = new boolean[1];
+        presences.computeIfPresent(userId, (id, current) -> {
+            if (current.awayCheckGeneration == generation && current.status == UserStatus.ONLINE
+                    && System.currentTimeMillis() - current.lastActivity >= awayAfterMs) {
+                current.status = UserStatus.AWAY;
+                wentAway[0] = true;
+            }
+            return current;
+        });
+
+        if (wentAway[0]) {
+            log.debug("User is away: {}", userId);
+            pendingStatuses.put(userId, UserStatus.AWAY);
+            broadcastFromWheel(userId, UserStatus.AWAY);
+        }
+    }
+
+    // The fan-out looks up memberships and sends a frame per conversation, too slow
+    // for the wheel thread. A user who changed status again before it runs is
+    // skipped; that newer transition broadcasts itself.
+    private void broadcastFromWheel(String userId, UserStatus status) {
+        wheelHandOffExecutor.execute(() -> {
+            if (getStatus(userId) == status) {
+                presenceBroadcaster.broadcast(userId, status);
+            }
+        });
+    }
+
+    private void markActive(String userId) {
+        boolean[] cameBack = new boolean[1];
+        Presence presence = presences.computeIfPresent(userId, (id, current) -> {
+            if (current.status == UserStatus.AWAY) {
+                current.status = UserStatus.ONLINE;
+                current.awayCheckGeneration++;
+                cameBack[0] = true;
+            }
+            return current;
+        });
+
+        if (cameBack[0]) {
+            scheduleAwayCheck(userId, presence.awayCheckGeneration, awayAfterMs);
+            pendingStatuses.put(userId, UserStatus.ONLINE);
+            presenceBroadcaster.broadcast(userId, UserStatus.ONLINE);
+        }
+    }
+
+    private void checkSession(String sessionId, long timeoutMs) {
+        SessionState state = sessions.get(sessionId);
+        if (state == null) {
+            return;
+        }
+
+        long silent = System.currentTimeMillis() - state.lastRead;
+        if (silent < timeoutMs) {
+            timingWheel.schedule(timeoutMs - silent, () -> checkSession(sessionId, timeoutMs));
+            return;
+        }
+
+        log.info("Closing half-open session {} of user {} after {} ms without frames", sessionId, state.userId, silent);
+        sessionTracker.close(sessionId, CloseStatus.SESSION_NOT_RELIABLE);
+        disconnect(state.userId, sessionId);
+    }
+
+    private static final class Presence {
+        private final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+        private volatile UserStatus status = UserStatus.ONLINE;
+        private volatile long lastActivity;
+        private volatile long lastSeen;
+        private volatile long lastSeenFlushed;
+        private volatile long awayCheckGeneration;
+        // Pending transition to OFFLINE after the last session closed, null if none
+        private volatile TimingWheel.Timeout offlineTimeout;
+    }
+
+    private static final class SessionState {
+        private final String userId;
+        private volatile long lastRead;
+
+        private SessionState(String userId, long lastRead) {
+            this.userId = userId;
+            this.lastRead = lastRead;
+        }
+    }
+}
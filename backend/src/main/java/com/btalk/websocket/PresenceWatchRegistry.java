@@ -0,0 +1,94 @@
+package com.btalk.websocket;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Which STOMP sessions asked to be told about which users' presence. Watches
+ * are per session, since two tabs of the same user usually show different
+ * contact lists, and are dropped when the session disconnects.
+ */
+@Component
+@Slf4j
+public class PresenceWatchRegistry {
+
+    public static final int MAX_WATCHED_USERS_PER_SESSION = 500;
+
+    // sessionId -> watched userIds
+    private final Map<String, Set<String>> sessionWatches = new ConcurrentHashMap<>();
+
+    // watched userId -> (sessionId -> watcher userId)
+    private final Map<String, Map<String, String>> watchers = new ConcurrentHashMap<>();
+
+    /**
+     * Adds users to the session's watch list, up to
+     * {@link #MAX_WATCHED_USERS_PER_SESSION} in total.
+     *
+     * @return the users that are now watched by the session, among those requested
+     */
+    public Set<String> watch(String sessionId, String watcherId, Collection<String> userIds) {
+        Set<String> watched = sessionWatches.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet());
+        Set<String> accepted = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (watched.contains(userId) || watched.size() < MAX_WATCHED_USERS_PER_SESSION) {
+                watched.add(userId);
+                watchers.computeIfAbsent(userId, k -> new ConcurrentHashMap<>()).put(sessionId, watcherId);
+                accepted.add(userId);
+            }
+        }
+        if (accepted.size() < userIds.size()) {
+            log.warn("Session {} exceeded the presence watch limit of {}", sessionId, MAX_WATCHED_USERS_PER_SESSION);
+        }
+        return accepted;
+    }
+
+    /**
+     * Removes users from the session's watch list, or all of them when
+     * {@code userIds} is null or empty.
+     */
+    public void unwatch(String sessionId, Collection<String> userIds) {
+        Set<String> watched = sessionWatches.get(sessionId);
+        if (watched == null) {
+            return;
+        }
+        Collection<String> removed = userIds == null || userIds.isEmpty() ? Set.copyOf(watched) : userIds;
+        for (String userId : removed) {
+            watched.remove(userId);
+            removeWatcher(userId, sessionId);
+        }
+        if (watched.isEmpty()) {
+            sessionWatches.remove(sessionId);
+        }
+    }
+
+    /**
+     * Sessions watching the user, as sessionId -> watcher userId.
+     */
+    public Map<String, String> getWatchers(String userId) {
+        return watchers.getOrDefault(userId, Map.of());
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Set<String> watched = sessionWatches.remove(event.getSessionId());
+        if (watched != null) {
+            watched.forEach(userId -> removeWatcher(userId, event.getSessionId()));
+        }
+    }
+
+    private void removeWatcher(String userId, String sessionId) {
+        watchers.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.btalk.websocket;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Executor for a STOMP client channel with two lanes. Messages the predicate
+ * selects run on their own executor; everything else, and any task that is
+ * not a channel send, runs on the regular one. A burst on the regular lane
+ * therefore never delays a message on the priority lane.
+ * <p>
+ * The time each task waits before it starts is recorded per lane once the
+ * timers are set.
+ */
+public class PriorityChannelExecutor implements Executor {
+
+    private final Executor regular;
+    private final Executor priority;
+    private final Predicate<Message<?>> prioritySelector;
+
+    private volatile Timer regularWait;
+    private volatile Timer priorityWait;
+
+    public PriorityChannelExecutor(Executor regular, Executor priority, Predicate<Message<?>> prioritySelector) {
+        this.regular = regular;
+        this.priority = priority;
+        this.prioritySelector = prioritySelector;
+    }
+
+    void setWaitTimers(Timer regularWait, Timer priorityWait) {
+        this.regularWait = regularWait;
+        this.priorityWait = priorityWait;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof MessageHandlingRunnable sendTask && prioritySelector.test(sendTask.getMessage())) {
+            priority.execute(timed(task, priorityWait));
+        } else {
+            regular.execute(timed(task, regularWait));
+        }
+    }
+
+    private static Runnable timed(Runnable task, Timer wait) {
+        if (wait == null) {
+            return task;
+        }
+        long submittedAt = System.nanoTime();
+        return () -> {
+            wait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            task.run();
+        };
+    }
+}
@@ -0,0 +1,168 @@
+package com.btalk.websocket;
+
+import com.btalk.dto.TypingDto;
+import com.btalk.utils.TimingWheel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ephemeral typing state, never persisted. Each user's typing frames are
+ * throttled, entries expire on the timing wheel unless refreshed, and every
+ * conversation gets at most one {@code /topic/conversation/{id}/typing}
+ * broadcast per interval carrying the full set of typing users: the first
+ * change goes out immediately, later changes within the interval are
+ * coalesced into one trailing broadcast.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TypingTracker {
+
+    private final TimingWheel timingWheel;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ConversationMembershipCache membershipCache;
+
+    @Value("${app.typing.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${app.typing.throttle-ms:1000}")
+    private long throttleMs;
+
+    @Value("${app.typing.broadcast-interval-ms:500}")
+    private long broadcastIntervalMs;
+
+    // conversationId -> typing state
+    private final Map<String, ConversationTyping> conversations = new ConcurrentHashMap<>();
+
+    public void onTyping(String conversationId, String userId, boolean typing) {
+        if (!membershipCache.isParticipant(userId, conversationId)) {
+            log.warn("Ignoring typing event from non-participant {} in conversation {}", userId, conversationId);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        ConversationTyping state;
+        boolean changed;
+        boolean schedule = false;
+
+        while (true) {
+            state = conversations.computeIfAbsent(conversationId, id -> new ConversationTyping());
+            synchronized (state) {
+                if (state.removed) {
+                    // Lost a race with flush() dropping the idle state; use the new one
+                    continue;
+                }
+                TypingEntry entry = state.typers.get(userId);
+                if (!typing) {
+                    changed = state.typers.remove(userId) != null;
+                } else if (entry == null) {
+                    state.typers.put(userId, new TypingEntry(now, now + ttlMs));
+                    changed = true;
+                    schedule = true;
+                } else if (now - entry.lastAccepted < throttleMs) {
+                    // Throttled: the entry is still fresh, nothing to do
+                    return;
+                } else {
+                    entry.lastAccepted = now;
+                    entry.expiresAt = now + ttlMs;
+                    changed = false;
+                }
+            }
+            break;
+        }
+
+        if (schedule) {
+            timingWheel.schedule(ttlMs, () -> expire(conversationId, userId));
+        }
+        if (changed) {
+            markChanged(conversationId, state);
+        }
+    }
+
+    private void expire(String conversationId, String userId) {
+        ConversationTyping state = conversations.get(conversationId);
+        if (state == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (state) {
+            TypingEntry entry = state.typers.get(userId);
+            if (entry == null) {
+                return;
+            }
+            if (entry.expiresAt > now) {
+                // Refreshed since this check was armed
+                timingWheel.schedule(entry.expiresAt - now, () -> expire(conversationId, userId));
+                return;
+            }
+            state.typers.remove(userId);
+        }
+        markChanged(conversationId, state);
+    }
+
+    private void markChanged(String conversationId, ConversationTyping state) {
+        long now = System.currentTimeMillis();
+        synchronized (state) {
+            if (state.flushScheduled) {
+                return;
+            }
+            long wait = state.lastBroadcast + broadcastIntervalMs - now;
+            if (wait > 0) {
+                state.flushScheduled = true;
+                timingWheel.schedule(wait, () -> flush(conversationId, state));
+                return;
+            }
+        }
+        flush(conversationId, state);
+    }
+
+    private void flush(String conversationId, ConversationTyping state) {
+        Set<String> typingUserIds;
+        synchronized (state) {
+            state.flushScheduled = false;
+            state.lastBroadcast = System.currentTimeMillis();
+            typingUserIds = Set.copyOf(state.typers.keySet());
+            if (typingUserIds.isEmpty()) {
+                state.removed = true;
+                conversations.remove(conversationId, state);
+            }
+        }
+
+        try {
+            messagingTemplate.convertAndSend("/topic/conversation/" + conversationId + "/typing",
+                    new TypingDto(conversationId, typingUserIds));
+        } catch (Exception e) {
+            log.error("Failed to broadcast typing state for conversation {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private static final class ConversationTyping {
+        // userId -> entry; all fields are guarded by the ConversationTyping monitor
+        private final Map<String, TypingEntry> typers = new HashMap<>();
+        private long lastBroadcast;
+        private boolean flushScheduled;
+        // Set once the state is dropped from the map; writers must look it up again
+        private boolean removed;
+    }
+
+    private static final class TypingEntry {
+        private long lastAccepted;
+        private long expiresAt;
+
+        private TypingEntry(long lastAccepted, long expiresAt) {
+            this.lastAccepted = lastAccepted;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,22 +1,18 @@
 package com.btalk.websocket;
 
-import com.btalk.constants.UserStatus;
-
-import com.btalk.dto.ConversationDto;
-import com.btalk.service.ConversationService;
-import com.btalk.service.UserService;
-
 import java.security.Principal;
-import java.util.List;
 
 import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectEvent;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.btalk.service.CallService;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,9 +21,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class WebSocketEventListener {
 
-    private final UserService userService;
-    private final ConversationService conversationService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceRegistry presenceRegistry;
+    private final CallService callService;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
@@ -37,10 +32,13 @@ public class WebSocketEventListener {
         if (user != null) {
             try {
                 String userId = user.getName();
-                log.info("User connected: {}", userId);
-                userService.updateUserStatus(userId, UserStatus.ONLINE);
+                if (presenceRegistry.connect(userId, headers.getSessionId(), getClientHeartbeat(headers))) {
+                    log.info("User connected: {}", userId);
+                } else {
+                    log.debug("User {} opened another session ({} live)", userId, presenceRegistry.getSessionCount(userId));
+                }
             } catch (Exception e) {
-                log.error("Failed to update user status to ONLINE", e);
+                log.error("Failed to register user presence", e);
             }
         }
     }
@@ -61,35 +59,34 @@ public class WebSocketEventListener {
 
         try {
             String userId = user.getName();
-            log.info("User disconnected: {}", userId);
-            
-            // Update user status
-            userService.updateUserStatus(userId, UserStatus.OFFLINE);
             
-            // Notify all active conversations that user went offline
-            try {
-                List<ConversationDto> conversations = conversationService.getUserConversations(userId);
-                if (conversations != null && !conversations.isEmpty()) {
-                    for (ConversationDto conversation : conversations) {
-                        try {
-                            messagingTemplate.convertAndSend(
-                                "/topic/conversation/" + conversation.getConversationId() + "/user-offline",
-                                userId
-                            );
-                        } catch (Exception e) {
-                            log.error("Failed to send offline notification for conversation {}: {}", 
-                                    conversation.getConversationId(), e.getMessage());
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Failed to get user conversations for offline notifications: {}", e.getMessage());
+            // Other tabs/devices keep the user online; the last session only
+            // starts the offline grace period in the presence registry
+            if (presenceRegistry.disconnect(userId, event.getSessionId())) {
+                log.info("User disconnected: {}", userId);
+            } else {
+                log.debug("User {} closed a session ({} still live)", userId, presenceRegistry.getSessionCount(userId));
+            }
+            // Checked by count rather than the result above: a half-open session
+            // may already have been removed by the presence registry itself
+            if (presenceRegistry.getSessionCount(userId) == 0) {
+                callService.releaseCallsAfterDisconnect(userId);
             }
         } catch (Exception e) {
             log.error("Error handling disconnect event: {}", e.getMessage());
         }
     }
     
+    // Outgoing heartbeat interval the client announced in its CONNECT frame, 0 if none
+    private long getClientHeartbeat(SimpMessageHeaderAccessor headers) {
+        Object connectMessage = headers.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        if (!(connectMessage instanceof Message<?> message)) {
+            return 0;
+        }
+        long[] heartbeat = StompHeaderAccessor.wrap(message).getHeartbeat();
+        return heartbeat.length > 0 ? heartbeat[0] : 0;
+    }
+
     @EventListener
     public void handleSessionConnected(SessionConnectEvent event) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -0,0 +1,435 @@
+package com.btalk.websocket;
+
+import com.btalk.security.DestinationAuthorizationInterceptor;
+import com.btalk.security.WebSocketTokenVerifier;
+import com.btalk.utils.ConcurrencyLimitedDataSource;
+import com.btalk.utils.HandOffExecutor;
+import com.btalk.utils.LaneExecutor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes WebSocket and STOMP telemetry to Micrometer, visible under
+ * {@code /actuator/metrics}:
+ * <ul>
+ *   <li>{@code websocket.sessions} and STOMP connect/disconnect totals, read from
+ *       Spring's {@link WebSocketMessageBrokerStats};</li>
+ *   <li>{@code websocket.subscriptions} per destination prefix;</li>
+ *   <li>{@code websocket.messages.*} and {@code websocket.bytes.*} for client
+ *       inbound and outbound traffic, by destination prefix;</li>
+ *   <li>{@code websocket.broker.latency}, the time from a message entering the
+ *       broker channel to its delivery to a session's outbound channel;</li>
+ *   <li>gauges for the outbound session buffers, conversation lanes, payload
+ *       encoding, authorization, the token cache and the DB permit limiter;</li>
+ *   <li>{@code executor.handoff.retried} and {@code executor.handoff.dropped}
+ *       for work handed off from the timing wheel, by executor.</li>
+ * </ul>
+ * Destination prefixes are the first two path segments ({@code /topic/conversation},
+ * {@code /user/queue}). Clients choose the destinations they send and subscribe
+ * to, so only prefixes in {@code app.websocket.metrics.destination-prefixes}
+ * become tags; anything else is counted under {@code other}, which keeps tag
+ * cardinality bounded.
+ */
+@Component
+@Slf4j
+public class WebSocketMetrics implements MeterBinder {
+
+    // Set on the broker channel and copied by the broker onto every per-session message
+    static final String BROKER_RECEIVED_HEADER = "brokerReceivedAt";
+
+    static final String OTHER_PREFIX = "other";
+
+    private final ObjectProvider<WebSocketMessageBrokerStats> brokerStats;
+    private final ObjectProvider<DestinationAuthorizationInterceptor> authorizationInterceptor;
+    private final ObjectProvider<DataSource> dataSource;
+    private final OutboundBackpressureDecoratorFactory outboundFactory;
+    private final PayloadEncoder payloadEncoder;
+    private final LaneExecutor conversationLaneExecutor;
+    private final WebSocketTokenVerifier tokenVerifier;
+    private final Map<String, HandOffExecutor> handOffExecutors;
+    private final Set<String> knownPrefixes;
+
+    // sessionId -> subscriptionId -> destination prefix
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> subscriptionsByPrefix = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> inboundMessages = new ConcurrentHashMap<>();
+    private final Map<String, Counter> outboundMessages = new ConcurrentHashMap<>();
+    private final Map<SimpMessageType, Counter> inboundFrames = new EnumMap<>(SimpMessageType.class);
+
+    // Assigned once the registry binds this; interceptors no-op until then
+    private volatile MeterRegistry registry;
+    private Counter inboundBytes;
+    private Counter outboundBytes;
+    private Timer brokerLatency;
+
+    private final ChannelInterceptor inboundInterceptor = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            recordInbound(message);
+            return message;
+        }
+    };
+
+    private final ChannelInterceptor outboundInterceptor = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            recordOutbound(message);
+            return message;
+        }
+    };
+
+    private final ChannelInterceptor brokerInterceptor = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            return stampBrokerReceived(message);
+        }
+    };
+
+    public WebSocketMetrics(ObjectProvider<WebSocketMessageBrokerStats> brokerStats,
+                            ObjectProvider<DestinationAuthorizationInterceptor> authorizationInterceptor,
+                            ObjectProvider<DataSource> dataSource,
+                            OutboundBackpressureDecoratorFactory outboundFactory,
+                            PayloadEncoder payloadEncoder,
+                            LaneExecutor conversationLaneExecutor,
+                            WebSocketTokenVerifier tokenVerifier,
+                            Map<String, HandOffExecutor> handOffExecutors,
+                            @Value("${app.websocket.metrics.destination-prefixes:/app/chat,/app/call,/app/presence,/app/notifications,/topic/conversation,/topic/call,/topic,/user/queue,/queue}")
+                            Set<String> knownPrefixes) {
+        this.brokerStats = brokerStats;
+        this.authorizationInterceptor = authorizationInterceptor;
+        this.dataSource = dataSource;
+        this.outboundFactory = outboundFactory;
+        this.payloadEncoder = payloadEncoder;
+        this.conversationLaneExecutor = conversationLaneExecutor;
+        this.tokenVerifier = tokenVerifier;
+        this.handOffExecutors = Map.copyOf(handOffExecutors);
+        this.knownPrefixes = Set.copyOf(knownPrefixes);
+    }
+
+    public ChannelInterceptor getInboundInterceptor() {
+        return inboundInterceptor;
+    }
+
+    public ChannelInterceptor getOutboundInterceptor() {
+        return outboundInterceptor;
+    }
+
+    public ChannelInterceptor getBrokerInterceptor() {
+        return brokerInterceptor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindBrokerStats(registry);
+
+        inboundBytes = Counter.builder("websocket.bytes.inbound")
+                .description("Payload bytes of STOMP SEND frames received from clients")
+                .baseUnit("bytes")
+                .register(registry);
+        outboundBytes = Counter.builder("websocket.bytes.outbound")
+                .description("Payload bytes of STOMP MESSAGE frames delivered to sessions")
+                .baseUnit("bytes")
+                .register(registry);
+        for (SimpMessageType type : SimpMessageType.values()) {
+            inboundFrames.put(type, Counter.builder("websocket.frames.inbound")
+                    .description("Frames received from clients, by type")
+                    .tag("type", type.name().toLowerCase())
+                    .register(registry));
+        }
+        brokerLatency = Timer.builder("websocket.broker.latency")
+                .description("Time from a message entering the broker to its delivery to a session")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+
+        Gauge.builder("websocket.outbound.sessions", outboundFactory, OutboundBackpressureDecoratorFactory::getSessionCount)
+                .description("Sessions with an outbound buffer")
+                .register(registry);
+        Gauge.builder("websocket.outbound.queued", outboundFactory, OutboundBackpressureDecoratorFactory::getTotalQueuedBytes)
+                .description("Bytes waiting in outbound session buffers")
+                .tag("stat", "total")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("websocket.outbound.queued", outboundFactory, OutboundBackpressureDecoratorFactory::getMaxQueuedBytes)
+                .description("Bytes waiting in outbound session buffers")
+                .tag("stat", "max")
+                .baseUnit("bytes")
+                .register(registry);
+
+        Gauge.builder("conversation.lanes.active", conversationLaneExecutor, LaneExecutor::getActiveLaneCount)
+                .description("Conversations with queued or running lane tasks")
+                .register(registry);
+
+        FunctionCounter.builder("websocket.encoding.payloads", payloadEncoder, PayloadEncoder::getEncodedPayloads)
+                .description("Payloads serialized for broadcast")
+                .register(registry);
+        FunctionCounter.builder("websocket.encoding.deliveries", payloadEncoder, PayloadEncoder::getDeliveries)
+                .description("Messages sent from pre-encoded payloads")
+                .register(registry);
+        FunctionCounter.builder("websocket.encoding.time", payloadEncoder, encoder -> encoder.getEncodeNanos() / 1e9)
+                .description("Time spent serializing broadcast payloads")
+                .baseUnit("seconds")
+                .register(registry);
+
+        DestinationAuthorizationInterceptor authorization = authorizationInterceptor.getIfAvailable();
+        if (authorization != null) {
+            FunctionCounter.builder("websocket.authorization.checks", authorization, DestinationAuthorizationInterceptor::getCheckCount)
+                    .description("SUBSCRIBE and SEND frames checked against conversation membership")
+                    .register(registry);
+            FunctionCounter.builder("websocket.authorization.denied", authorization, DestinationAuthorizationInterceptor::getDeniedCount)
+                    .description("SUBSCRIBE and SEND frames refused")
+                    .register(registry);
+        }
+        Gauge.builder("websocket.auth.cached.tokens", tokenVerifier, WebSocketTokenVerifier::getCachedTokenCount)
+                .description("Verified tokens held by the WebSocket token cache")
+                .register(registry);
+
+        if (dataSource.getIfAvailable() instanceof ConcurrencyLimitedDataSource limited) {
+            Gauge.builder("db.permits.available", limited, ConcurrencyLimitedDataSource::getAvailablePermits)
+                    .description("Free permits of the virtual-thread DB concurrency limiter")
+                    .register(registry);
+            Gauge.builder("db.permits.waiting", limited, ConcurrencyLimitedDataSource::getQueueLength)
+                    .description("Threads waiting for a DB permit")
+                    .register(registry);
+        }
+
+        handOffExecutors.forEach((name, executor) -> {
+            FunctionCounter.builder("executor.handoff.retried", executor, HandOffExecutor::getRetriedCount)
+                    .description("Tasks rejected by a saturated executor and retried from the timing wheel")
+                    .tag("executor", name)
+                    .register(registry);
+            FunctionCounter.builder("executor.handoff.dropped", executor, HandOffExecutor::getDroppedCount)
+                    .description("Tasks dropped after every retry was rejected")
+                    .tag("executor", name)
+                    .register(registry);
+        });
+
+        // Published last: the interceptors start recording once this is set
+        this.registry = registry;
+    }
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+        String prefix = prefixOf(headers.getDestination());
+        String previous = sessionSubscriptions
+                .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, prefix);
+        if (previous != null) {
+            subscriptionCount(previous).decrementAndGet();
+        }
+        subscriptionCount(prefix).incrementAndGet();
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = headers.getSessionId() != null
+                ? sessionSubscriptions.get(headers.getSessionId()) : null;
+        if (subscriptions == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        String prefix = subscriptions.remove(headers.getSubscriptionId());
+        if (prefix != null) {
+            subscriptionCount(prefix).decrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(prefix -> subscriptionCount(prefix).decrementAndGet());
+        }
+    }
+
+    private void bindBrokerStats(MeterRegistry registry) {
+        WebSocketMessageBrokerStats stats = brokerStats.getIfAvailable();
+        if (stats == null) {
+            log.warn("WebSocketMessageBrokerStats not available, session metrics disabled");
+            return;
+        }
+        sessionGauge(registry, stats, "websocket", s -> s.getWebSocketSessions());
+        sessionGauge(registry, stats, "http-streaming", s -> s.getHttpStreamingSessions());
+        sessionGauge(registry, stats, "http-polling", s -> s.getHttpPollingSessions());
+        closedCounter(registry, stats, "limit-exceeded", s -> s.getLimitExceededSessions());
+        closedCounter(registry, stats, "no-messages-received", s -> s.getNoMessagesReceivedSessions());
+        closedCounter(registry, stats, "transport-error", s -> s.getTransportErrorSessions());
+        stompCounter(registry, stats, "connect", s -> s.getTotalConnect());
+        stompCounter(registry, stats, "connected", s -> s.getTotalConnected());
+        stompCounter(registry, stats, "disconnect", s -> s.getTotalDisconnect());
+    }
+
+    private static void sessionGauge(MeterRegistry registry, WebSocketMessageBrokerStats stats, String transport,
+                                     ToDoubleFunction<SubProtocolWebSocketHandler.Stats> value) {
+        Gauge.builder("websocket.sessions", stats, s -> s.getWebSocketSessionStats() != null
+                        ? value.applyAsDouble(s.getWebSocketSessionStats()) : 0)
+                .description("Open WebSocket sessions, by transport")
+                .tag("transport", transport)
+                .register(registry);
+    }
+
+    private static void closedCounter(MeterRegistry registry, WebSocketMessageBrokerStats stats, String reason,
+                                      ToDoubleFunction<SubProtocolWebSocketHandler.Stats> value) {
+        FunctionCounter.builder("websocket.sessions.closed.abnormally", stats, s -> s.getWebSocketSessionStats() != null
+                        ? value.applyAsDouble(s.getWebSocketSessionStats()) : 0)
+                .description("Sessions closed by the server, by reason")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static void stompCounter(MeterRegistry registry, WebSocketMessageBrokerStats stats, String frame,
+                                     ToDoubleFunction<StompSubProtocolHandler.Stats> value) {
+        FunctionCounter.builder("websocket.stomp.frames", stats, s -> s.getStompSubProtocolStats() != null
+                        ? value.applyAsDouble(s.getStompSubProtocolStats()) : 0)
+                .description("STOMP session lifecycle frames")
+                .tag("frame", frame)
+                .register(registry);
+    }
+
+    private void recordInbound(Message<?> message) {
+        MeterRegistry meters = registry;
+        if (meters == null) {
+            return;
+        }
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (type == null) {
+            return;
+        }
+        inboundFrames.get(type).increment();
+        if (type == SimpMessageType.MESSAGE) {
+            String prefix = prefixOf(SimpMessageHeaderAccessor.getDestination(headers));
+            inboundMessages.computeIfAbsent(prefix, p -> messageCounter(meters, "websocket.messages.inbound",
+                    "STOMP SEND frames received from clients", p)).increment();
+            if (message.getPayload() instanceof byte[] payload) {
+                inboundBytes.increment(payload.length);
+            }
+        }
+    }
+
+    private void recordOutbound(Message<?> message) {
+        MeterRegistry meters = registry;
+        if (meters == null) {
+            return;
+        }
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        String prefix = prefixOf(outboundDestination(message));
+        outboundMessages.computeIfAbsent(prefix, p -> messageCounter(meters, "websocket.messages.outbound",
+                "STOMP MESSAGE frames delivered to sessions", p)).increment();
+        if (message.getPayload() instanceof byte[] payload) {
+            outboundBytes.increment(payload.length);
+        }
+        if (headers.get(BROKER_RECEIVED_HEADER) instanceof Long receivedAt) {
+            brokerLatency.record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Message<?> stampBrokerReceived(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        // User destinations pass the broker channel twice; keep the first stamp
+        if (registry == null || headers.containsKey(BROKER_RECEIVED_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setHeader(BROKER_RECEIVED_HEADER, System.nanoTime());
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    // Resolved user destinations (/queue/x-user{session}) report the /user/... form the client subscribed to
+    private static String outboundDestination(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor != null) {
+            String original = accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+            if (original != null) {
+                return original;
+            }
+        }
+        return SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    }
+
+    private AtomicInteger subscriptionCount(String prefix) {
+        return subscriptionsByPrefix.computeIfAbsent(prefix, p -> {
+            AtomicInteger count = new AtomicInteger();
+            MeterRegistry meters = registry;
+            if (meters != null) {
+                Gauge.builder("websocket.subscriptions", count, AtomicInteger::get)
+                        .description("Active STOMP subscriptions, by destination prefix")
+                        .tag("prefix", p)
+                        .register(meters);
+            }
+            return count;
+        });
+    }
+
+    private static Counter messageCounter(MeterRegistry registry, String name, String description, String prefix) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("prefix", prefix)
+                .register(registry);
+    }
+
+    String prefixOf(String destination) {
+        if (destination == null || destination.isEmpty()) {
+            return "none";
+        }
+        String prefix;
+        int second = destination.indexOf('/', 1);
+        if (second < 0) {
+            prefix = destination;
+        } else {
+            int third = destination.indexOf('/', second + 1);
+            // Two-segment destinations can carry ids (e.g. resolved /queue/x-user{session}); keep only the first
+            prefix = third < 0 ? destination.substring(0, second) : destination.substring(0, third);
+        }
+        return knownPrefixes.contains(prefix) ? prefix : OTHER_PREFIX;
+    }
+}
@@ -0,0 +1,73 @@
+package com.btalk.websocket;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.session.AbstractSockJsSession;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a handle on every open WebSocket session, keyed by the same id STOMP
+ * uses as {@code simpSessionId}, so that server-side components can close a
+ * session they consider dead.
+ */
+@Component
+@Slf4j
+public class WebSocketSessionTracker implements WebSocketHandlerDecoratorFactory {
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                // SockJS frames are text only, whatever the underlying transport
+                session.getAttributes().put(PayloadFormatRegistry.BINARY_CAPABLE_ATTRIBUTE,
+                        !(WebSocketSessionDecorator.unwrap(session) instanceof AbstractSockJsSession));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Closes the session if it is still open. The regular disconnect path
+     * (SessionDisconnectEvent) then runs as for a client-initiated close.
+     */
+    public void close(String sessionId, CloseStatus status) {
+        WebSocketSession session = sessions.get(sessionId);
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.warn("Failed to close WebSocket session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    public Set<String> getOpenSessionIds() {
+        return Set.copyOf(sessions.keySet());
+    }
+
+    public int getOpenSessionCount() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,105 @@
+package com.btalk.websocket.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Forwards locally published broker messages to the other nodes. Installed on
+ * the broker channel, so it sees everything SimpMessagingTemplate and
+ * {@code @SendTo}/{@code @SendToUser} produce:
+ * <ul>
+ * <li>{@code /topic/**} goes to every node;</li>
+ * <li>{@code /user/{id}/**} goes only to the nodes that hold a session of that user;</li>
+ * <li>already-resolved {@code /queue/**} session destinations stay local.</li>
+ * </ul>
+ * Messages that arrived from the bus carry {@link #RELAYED_HEADER} and are
+ * never forwarded again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterBrokerInterceptor implements ChannelInterceptor {
+
+    public static final String RELAYED_HEADER = "clusterRelayed";
+
+    private static final String USER_PREFIX = "/user/";
+
+    private final ClusterBus clusterBus;
+    private final ClusterUserRegistry clusterUserRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (headers.containsKey(RELAYED_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null) {
+            return message;
+        }
+
+        try {
+            if (destination.startsWith("/topic/")) {
+                clusterBus.publish(toEnvelope(destination, headers, payload, null));
+            } else if (destination.startsWith(USER_PREFIX)) {
+                forwardToUserNodes(destination, headers, payload);
+            }
+        } catch (Exception e) {
+            log.error("Failed to forward {} to the cluster: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    private void forwardToUserNodes(String destination, MessageHeaders headers, byte[] payload) {
+        int end = destination.indexOf('/', USER_PREFIX.length());
+        if (end < 0) {
+            return;
+        }
+        String userId = destination.substring(USER_PREFIX.length(), end);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (sessionId != null && clusterUserRegistry.isLocalSession(userId, sessionId)) {
+            // Targets one session, and it is connected here
+            return;
+        }
+        Set<String> nodeIds = clusterUserRegistry.getRemoteNodeIds(userId);
+        for (String nodeId : nodeIds) {
+            clusterBus.publish(toEnvelope(destination, headers, payload, nodeId));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClusterEnvelope toEnvelope(String destination, MessageHeaders headers, byte[] payload, String targetNodeId) {
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        return ClusterEnvelope.builder()
+                .type(ClusterEnvelope.Type.BROKER_MESSAGE)
+                .originNodeId(clusterBus.getNodeId())
+                .targetNodeId(targetNodeId)
+                .destination(destination)
+                .contentType(contentType != null ? contentType.toString() : null)
+                .sessionId(SimpMessageHeaderAccessor.getSessionId(headers))
+                .nativeHeaders((Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS))
+                .payload(payload)
+                .build();
+    }
+
+    static MimeType parseContentType(String contentType) {
+        return contentType != null ? MimeType.valueOf(contentType) : null;
+    }
+}
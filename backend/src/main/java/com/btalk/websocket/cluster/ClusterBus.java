@@ -0,0 +1,20 @@
+package com.btalk.websocket.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Cross-node transport for broker traffic and user-registry updates. An
+ * envelope without a target node goes to every other node; one with a target
+ * goes only to that node. Envelopes are never delivered back to the node that
+ * published them.
+ */
+public interface ClusterBus {
+
+    String getNodeId();
+
+    void publish(ClusterEnvelope envelope);
+
+    void setListener(Consumer<ClusterEnvelope> listener);
+
+    void close();
+}
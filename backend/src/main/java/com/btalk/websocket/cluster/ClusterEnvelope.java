@@ -0,0 +1,42 @@
+package com.btalk.websocket.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterEnvelope {
+
+    public enum Type {
+        // A message published to the broker channel on the origin node
+        BROKER_MESSAGE,
+        // A user opened a session on the origin node
+        USER_JOINED,
+        // Full set of users connected to the origin node, also serves as node heartbeat
+        USER_SNAPSHOT
+    }
+
+    private Type type;
+    private String originNodeId;
+    // Null for a broadcast to all nodes
+    private String targetNodeId;
+
+    // BROKER_MESSAGE
+    private String destination;
+    private String contentType;
+    private String sessionId;
+    private Map<String, List<String>> nativeHeaders;
+    private byte[] payload;
+
+    // USER_JOINED / USER_SNAPSHOT
+    private String userId;
+    private Set<String> userIds;
+}
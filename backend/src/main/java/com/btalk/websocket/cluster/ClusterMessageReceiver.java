@@ -0,0 +1,74 @@
+package com.btalk.websocket.cluster;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies envelopes from other nodes locally: broker messages are re-published
+ * on this node's broker channel, so the simple broker and the user
+ * destination resolver deliver them to local subscribers as if they had been
+ * sent here; registry updates go to {@link ClusterUserRegistry}.
+ */
+@Component
+@Slf4j
+public class ClusterMessageReceiver {
+
+    private final ClusterBus clusterBus;
+    private final ClusterUserRegistry clusterUserRegistry;
+    private final MessageChannel brokerChannel;
+
+    public ClusterMessageReceiver(ClusterBus clusterBus,
+                                  ClusterUserRegistry clusterUserRegistry,
+                                  @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.clusterBus = clusterBus;
+        this.clusterUserRegistry = clusterUserRegistry;
+        this.brokerChannel = brokerChannel;
+    }
+
+    @PostConstruct
+    public void start() {
+        clusterBus.setListener(this::onEnvelope);
+    }
+
+    @PreDestroy
+    public void stop() {
+        clusterBus.setListener(null);
+    }
+
+    private void onEnvelope(ClusterEnvelope envelope) {
+        switch (envelope.getType()) {
+            case BROKER_MESSAGE -> publishLocally(envelope);
+            case USER_JOINED -> clusterUserRegistry.onUserJoined(envelope.getOriginNodeId(), envelope.getUserId());
+            case USER_SNAPSHOT -> clusterUserRegistry.onSnapshot(envelope.getOriginNodeId(), envelope.getUserIds());
+        }
+    }
+
+    private void publishLocally(ClusterEnvelope envelope) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.getDestination());
+        accessor.setContentType(ClusterBrokerInterceptor.parseContentType(envelope.getContentType()));
+        if (envelope.getSessionId() != null) {
+            accessor.setSessionId(envelope.getSessionId());
+        }
+        Map<String, List<String>> nativeHeaders = envelope.getNativeHeaders();
+        if (nativeHeaders != null) {
+            nativeHeaders.forEach((name, values) -> values.forEach(value -> accessor.addNativeHeader(name, value)));
+        }
+        accessor.setHeader(ClusterBrokerInterceptor.RELAYED_HEADER, envelope.getOriginNodeId());
+        accessor.setLeaveMutable(true);
+
+        brokerChannel.send(MessageBuilder.createMessage(envelope.getPayload(), accessor.getMessageHeaders()));
+    }
+}
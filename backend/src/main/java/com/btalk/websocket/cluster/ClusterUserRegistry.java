@@ -0,0 +1,126 @@
+package com.btalk.websocket.cluster;
+
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cluster-wide view of connected users on top of the local SimpUserRegistry.
+ * Every node periodically publishes the set of users connected to it, which
+ * doubles as a node heartbeat; a node that stops publishing is forgotten after
+ * {@code app.cluster.node-expiry-ms}. New sessions are announced immediately
+ * so that /user messages route to a freshly connected user without waiting
+ * for the next snapshot.
+ * <p>
+ * This deliberately is not a SimpUserRegistry bean: the local
+ * UserDestinationResolver must keep resolving against local sessions only.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterUserRegistry {
+
+    private final SimpUserRegistry localUserRegistry;
+    private final ClusterBus clusterBus;
+
+    @Value("${app.cluster.node-expiry-ms:10000}")
+    private long nodeExpiryMs;
+
+    // nodeId -> users connected to that node
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
+
+    public boolean isUserConnected(String userId) {
+        return localUserRegistry.getUser(userId) != null || !getRemoteNodeIds(userId).isEmpty();
+    }
+
+    public boolean isLocalSession(String userId, String sessionId) {
+        SimpUser user = localUserRegistry.getUser(userId);
+        return user != null && user.getSession(sessionId) != null;
+    }
+
+    /**
+     * Other live nodes that hold at least one session of the user.
+     */
+    public Set<String> getRemoteNodeIds(String userId) {
+        long now = System.currentTimeMillis();
+        Set<String> nodeIds = new HashSet<>();
+        remoteNodes.forEach((nodeId, node) -> {
+            if (now - node.updatedAt <= nodeExpiryMs && node.userIds.contains(userId)) {
+                nodeIds.add(nodeId);
+            }
+        });
+        return nodeIds;
+    }
+
+    public int getRemoteNodeCount() {
+        return remoteNodes.size();
+    }
+
+    void onSnapshot(String nodeId, Set<String> userIds) {
+        RemoteNode node = new RemoteNode();
+        node.userIds.addAll(userIds);
+        node.updatedAt = System.currentTimeMillis();
+        if (remoteNodes.put(nodeId, node) == null) {
+            log.info("Cluster node {} joined with {} users", nodeId, userIds.size());
+        }
+    }
+
+    void onUserJoined(String nodeId, String userId) {
+        RemoteNode node = remoteNodes.computeIfAbsent(nodeId, id -> new RemoteNode());
+        node.userIds.add(userId);
+        node.updatedAt = System.currentTimeMillis();
+    }
+
+    @EventListener
+    public void handleSessionConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+        clusterBus.publish(ClusterEnvelope.builder()
+                .type(ClusterEnvelope.Type.USER_JOINED)
+                .originNodeId(clusterBus.getNodeId())
+                .userId(user.getName())
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.snapshot-interval-ms:3000}")
+    public void publishSnapshot() {
+        Set<String> userIds = new HashSet<>();
+        for (SimpUser user : localUserRegistry.getUsers()) {
+            userIds.add(user.getName());
+        }
+        clusterBus.publish(ClusterEnvelope.builder()
+                .type(ClusterEnvelope.Type.USER_SNAPSHOT)
+                .originNodeId(clusterBus.getNodeId())
+                .userIds(userIds)
+                .build());
+
+        long now = System.currentTimeMillis();
+        remoteNodes.entrySet().removeIf(entry -> {
+            boolean expired = now - entry.getValue().updatedAt > nodeExpiryMs;
+            if (expired) {
+                log.warn("Cluster node {} expired", entry.getKey());
+            }
+            return expired;
+        });
+    }
+
+    private static final class RemoteNode {
+        private final Set<String> userIds = ConcurrentHashMap.newKeySet();
+        private volatile long updatedAt;
+    }
+}
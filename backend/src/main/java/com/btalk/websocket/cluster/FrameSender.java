@@ -0,0 +1,103 @@
+package com.btalk.websocket.cluster;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes frames to one peer from its own thread, so publishers only enqueue
+ * and never block on the socket. The queue is bounded: a frame that does not
+ * fit is rejected and the caller drops it.
+ * <p>
+ * Socket writes cannot time out on their own, so a write blocked for longer
+ * than {@code writeTimeoutMs} is treated as a dead peer: the next
+ * {@link #offer} notices and runs {@code onFailure}, which is expected to
+ * close the socket and thereby unblock the writer. A failed write runs it too.
+ */
+@Slf4j
+final class FrameSender {
+
+    private final String peer;
+    private final DataOutputStream out;
+    private final BlockingQueue<TcpClusterRelay.Frame> queue;
+    private final long writeTimeoutNanos;
+    private final Runnable onFailure;
+    private final Thread thread;
+
+    // Start of the write in progress, 0 while idle
+    private volatile long writeStartedNanos;
+    private volatile boolean closed;
+
+    FrameSender(String peer, DataOutputStream out, int capacity, long writeTimeoutMs, Runnable onFailure) {
+        this.peer = peer;
+        this.out = out;
+        this.queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.onFailure = onFailure;
+        this.thread = new Thread(this::run, "ClusterSender-" + peer);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the frame for sending.
+     *
+     * @return false if the queue is full, the sender is closed or the peer is
+     *         stalled; the frame is not sent in that case
+     */
+    boolean offer(TcpClusterRelay.Frame frame) {
+        if (closed) {
+            return false;
+        }
+        long startedAt = writeStartedNanos;
+        if (startedAt != 0 && System.nanoTime() - startedAt > writeTimeoutNanos) {
+            log.warn("Write to cluster peer {} blocked for over {} ms, disconnecting",
+                    peer, TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+            fail();
+            return false;
+        }
+        return queue.offer(frame);
+    }
+
+    int getQueuedCount() {
+        return queue.size();
+    }
+
+    void close() {
+        closed = true;
+        queue.clear();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                TcpClusterRelay.Frame frame = queue.take();
+                writeStartedNanos = System.nanoTime();
+                do {
+                    frame.write(out);
+                } while ((frame = queue.poll()) != null);
+                // One flush per burst rather than per frame
+                out.flush();
+                writeStartedNanos = 0;
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (IOException e) {
+            if (!closed) {
+                log.debug("Failed to write to cluster peer {}: {}", peer, e.getMessage());
+                fail();
+            }
+        }
+    }
+
+    private void fail() {
+        closed = true;
+        queue.clear();
+        onFailure.run();
+    }
+}
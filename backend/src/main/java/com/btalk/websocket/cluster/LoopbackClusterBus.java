@@ -0,0 +1,65 @@
+package com.btalk.websocket.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process bus. With a single application context it delivers nothing,
+ * which is the single-node default; several contexts in the same JVM that
+ * join the same group (e.g. in an integration test) see each other as nodes.
+ */
+@Slf4j
+public class LoopbackClusterBus implements ClusterBus {
+
+    // group -> buses that joined it
+    private static final Map<String, Set<LoopbackClusterBus>> GROUPS = new ConcurrentHashMap<>();
+
+    private final String group;
+    private final String nodeId;
+    private volatile Consumer<ClusterEnvelope> listener;
+
+    public LoopbackClusterBus(String group, String nodeId) {
+        this.group = group;
+        this.nodeId = nodeId;
+        GROUPS.computeIfAbsent(group, g -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(ClusterEnvelope envelope) {
+        for (LoopbackClusterBus bus : GROUPS.getOrDefault(group, Set.of())) {
+            if (bus == this || (envelope.getTargetNodeId() != null && !envelope.getTargetNodeId().equals(bus.nodeId))) {
+                continue;
+            }
+            Consumer<ClusterEnvelope> target = bus.listener;
+            if (target != null) {
+                try {
+                    target.accept(envelope);
+                } catch (Exception e) {
+                    log.error("Loopback delivery to node {} failed: {}", bus.nodeId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setListener(Consumer<ClusterEnvelope> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void close() {
+        GROUPS.computeIfPresent(group, (g, buses) -> {
+            buses.remove(this);
+            return buses.isEmpty() ? null : buses;
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package com.btalk.websocket.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Minimal stand-in for a real message relay: accepts node connections and
+ * forwards every frame either to its target node or, if it has none, to all
+ * other nodes. It never looks at frame bodies.
+ * <p>
+ * Wire format, shared with {@link TcpRelayClusterBus}: each frame is
+ * {@code int length, short targetLength, target (UTF-8), body}. The first
+ * frame on a connection is a hello whose body is the node id.
+ * <p>
+ * Every node connection has its own {@link FrameSender}, so a node that reads
+ * slowly only fills its own queue: frames for it are dropped once the queue is
+ * full, and it is disconnected if a write to it stalls, while forwarding to
+ * the other nodes carries on.
+ */
+@Slf4j
+public class TcpClusterRelay {
+
+    // A connection that does not say hello within this is closed
+    private static final int HELLO_TIMEOUT_MS = 10_000;
+
+    private final int port;
+    private final int sendQueueCapacity;
+    private final long writeTimeoutMs;
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public TcpClusterRelay(int port, int sendQueueCapacity, long writeTimeoutMs) {
+        this.port = port;
+        this.sendQueueCapacity = sendQueueCapacity;
+        this.writeTimeoutMs = writeTimeoutMs;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port));
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "ClusterRelay-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Cluster relay listening on port {}", serverSocket.getLocalPort());
+    }
+
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.debug("Error closing relay socket: {}", e.getMessage());
+        }
+        connections.values().forEach(Connection::close);
+        connections.clear();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread reader = new Thread(() -> serve(socket), "ClusterRelay-conn");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cluster relay accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Connection connection = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            socket.setSoTimeout(HELLO_TIMEOUT_MS);
+            Frame hello = Frame.read(in);
+            // Nodes may be quiet for long stretches once joined
+            socket.setSoTimeout(0);
+            String nodeId = new String(hello.body, StandardCharsets.UTF_8);
+            connection = new Connection(nodeId, socket, sendQueueCapacity, writeTimeoutMs);
+            Connection previous = connections.put(nodeId, connection);
+            if (previous != null) {
+                previous.close();
+            }
+            log.info("Node {} joined the cluster relay", nodeId);
+
+            while (running) {
+                Frame frame = Frame.read(in);
+                if (frame.target.isEmpty()) {
+                    for (Connection other : connections.values()) {
+                        if (other != connection) {
+                            other.write(frame);
+                        }
+                    }
+                } else {
+                    Connection target = connections.get(frame.target);
+                    if (target != null) {
+                        target.write(frame);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Relay connection closed: {}", e.getMessage());
+        } finally {
+            if (connection != null) {
+                connections.remove(connection.nodeId, connection);
+                connection.close();
+                log.info("Node {} left the cluster relay", connection.nodeId);
+            }
+        }
+    }
+
+    private static final class Connection {
+        private final String nodeId;
+        private final Socket socket;
+        private final FrameSender sender;
+
+        private Connection(String nodeId, Socket socket, int sendQueueCapacity, long writeTimeoutMs) throws IOException {
+            this.nodeId = nodeId;
+            this.socket = socket;
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.sender = new FrameSender(nodeId, out, sendQueueCapacity, writeTimeoutMs, this::closeSocket);
+        }
+
+        private void write(Frame frame) {
+            if (!sender.offer(frame)) {
+                log.debug("Send queue for node {} full or stalled, dropping frame", nodeId);
+            }
+        }
+
+        private void close() {
+            sender.close();
+            closeSocket();
+        }
+
+        private void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    static final class Frame {
+        final String target;
+        final byte[] body;
+
+        Frame(String target, byte[] body) {
+            this.target = target;
+            this.body = body;
+        }
+
+        static Frame read(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            int targetLength = in.readUnsignedShort();
+            byte[] target = new byte[targetLength];
+            in.readFully(target);
+            byte[] body = new byte[length - 2 - targetLength];
+            in.readFully(body);
+            return new Frame(new String(target, StandardCharsets.UTF_8), body);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            byte[] targetBytes = target.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(2 + targetBytes.length + body.length);
+            out.writeShort(targetBytes.length);
+            out.write(targetBytes);
+            out.write(body);
+        }
+    }
+}
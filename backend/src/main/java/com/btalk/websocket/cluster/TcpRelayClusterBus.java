@@ -0,0 +1,169 @@
+package com.btalk.websocket.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bus that talks to a {@link TcpClusterRelay}. Keeps one connection,
+ * reconnecting with a fixed back-off; envelopes published while disconnected
+ * are dropped, which the periodic user snapshots recover from.
+ * <p>
+ * Publishing only serializes and enqueues: a {@link FrameSender} thread does
+ * the socket writes, so a slow relay never holds up the broker thread that
+ * published. Envelopes that do not fit in the send queue are dropped, and a
+ * write stuck for longer than the write timeout drops the connection.
+ */
+@Slf4j
+public class TcpRelayClusterBus implements ClusterBus {
+
+    private static final long RECONNECT_DELAY_MS = 2000;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    private final String nodeId;
+    private final String host;
+    private final int port;
+    private final ObjectMapper objectMapper;
+    private final int sendQueueCapacity;
+    private final long writeTimeoutMs;
+    private final Thread reader;
+    private final AtomicLong droppedEnvelopes = new AtomicLong();
+
+    private volatile Consumer<ClusterEnvelope> listener;
+    private volatile Socket socket;
+    private volatile FrameSender sender;
+    private volatile boolean running = true;
+
+    public TcpRelayClusterBus(String nodeId, String host, int port, ObjectMapper objectMapper,
+                              int sendQueueCapacity, long writeTimeoutMs) {
+        this.nodeId = nodeId;
+        this.host = host;
+        this.port = port;
+        this.objectMapper = objectMapper;
+        this.sendQueueCapacity = sendQueueCapacity;
+        this.writeTimeoutMs = writeTimeoutMs;
+        this.reader = new Thread(this::run, "ClusterBus-" + nodeId);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(ClusterEnvelope envelope) {
+        FrameSender current = sender;
+        if (current == null) {
+            log.debug("Cluster relay not connected, dropping {} envelope", envelope.getType());
+            return;
+        }
+        TcpClusterRelay.Frame frame;
+        try {
+            String target = envelope.getTargetNodeId() != null ? envelope.getTargetNodeId() : "";
+            frame = new TcpClusterRelay.Frame(target, objectMapper.writeValueAsBytes(envelope));
+        } catch (IOException e) {
+            log.warn("Failed to serialize {} envelope: {}", envelope.getType(), e.getMessage());
+            return;
+        }
+        if (!current.offer(frame)) {
+            // Logged once per thousand so a stalled relay does not flood the log
+            if (droppedEnvelopes.getAndIncrement() % 1000 == 0) {
+                log.warn("Cluster relay send queue full or stalled, dropping {} envelope ({} dropped so far)",
+                        envelope.getType(), droppedEnvelopes.get());
+            }
+        }
+    }
+
+    @Override
+    public void setListener(Consumer<ClusterEnvelope> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closeSocket();
+        reader.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                s.setTcpNoDelay(true);
+                s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+                socket = s;
+                DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                new TcpClusterRelay.Frame("", nodeId.getBytes(StandardCharsets.UTF_8)).write(stream);
+                stream.flush();
+                sender = new FrameSender("relay", stream, sendQueueCapacity, writeTimeoutMs, () -> close(s));
+                log.info("Node {} connected to cluster relay {}:{}", nodeId, host, port);
+
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                while (running) {
+                    TcpClusterRelay.Frame frame = TcpClusterRelay.Frame.read(in);
+                    dispatch(objectMapper.readValue(frame.body, ClusterEnvelope.class));
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cluster relay connection lost: {}", e.getMessage());
+                }
+            } finally {
+                FrameSender current = sender;
+                sender = null;
+                if (current != null) {
+                    current.close();
+                }
+                socket = null;
+            }
+
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(ClusterEnvelope envelope) {
+        Consumer<ClusterEnvelope> target = listener;
+        if (target == null || nodeId.equals(envelope.getOriginNodeId())) {
+            return;
+        }
+        try {
+            target.accept(envelope);
+        } catch (Exception e) {
+            log.error("Failed to handle {} envelope from node {}: {}", envelope.getType(), envelope.getOriginNodeId(), e.getMessage());
+        }
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+        if (s != null) {
+            close(s);
+        }
+    }
+
+    private static void close(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,23 @@
+-- System-wide announcements, stored once and pushed on /topic/announcements
+
+-- For MySQL
+CREATE TABLE IF NOT EXISTS announcements (
+    announcement_id VARCHAR(36) PRIMARY KEY,
+    sender_id VARCHAR(36) NULL,
+    title VARCHAR(255) NOT NULL,
+    message VARCHAR(1000) NOT NULL,
+    data VARCHAR(2000) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_announcements_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Read state is written lazily, only for users who open an announcement
+CREATE TABLE IF NOT EXISTS announcement_reads (
+    id VARCHAR(36) PRIMARY KEY,
+    announcement_id VARCHAR(36) NOT NULL,
+    user_id VARCHAR(36) NOT NULL,
+    read_at TIMESTAMP NOT NULL,
+    UNIQUE KEY uk_announcement_reads (announcement_id, user_id),
+    FOREIGN KEY (announcement_id) REFERENCES announcements(announcement_id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
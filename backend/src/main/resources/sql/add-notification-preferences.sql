@@ -0,0 +1,11 @@
+-- Per-user notification type preferences and per-conversation mute flag
+
+-- For MySQL
+CREATE TABLE IF NOT EXISTS notification_preferences (
+    user_id VARCHAR(36) PRIMARY KEY,
+    disabled_types INT NOT NULL DEFAULT 0, -- bit n set = NotificationType ordinal n disabled
+    updated_at TIMESTAMP NULL,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE participants ADD COLUMN notifications_muted BOOLEAN NULL DEFAULT FALSE;
@@ -0,0 +1,8 @@
+-- Composite index backing the keyset-paginated notification feed
+-- (WHERE recipient_id = ? AND is_deleted = false ORDER BY created_at DESC)
+
+-- For MySQL
+CREATE INDEX idx_notifications_recipient_deleted_created ON notifications(recipient_id, is_deleted, created_at);
+
+-- The single-column recipient index is a prefix of the new one and can be dropped
+-- DROP INDEX idx_notifications_recipient_id ON notifications;
@@ -0,0 +1,4 @@
+-- Last-seen time, written in batches from the in-memory presence registry
+
+-- For MySQL
+ALTER TABLE users ADD COLUMN last_seen_at DATETIME(6) NULL;
@@ -0,0 +1,7 @@
+-- MessageType CALL and CallStatus MISSED were added after these tables were created.
+-- ddl-auto=update created native ENUM columns from the old constants and never alters
+-- existing columns, so inserting CALL or MISSED fails. Store both as plain strings.
+
+-- For MySQL
+ALTER TABLE messages MODIFY COLUMN message_type VARCHAR(20) NOT NULL;
+ALTER TABLE calls MODIFY COLUMN status VARCHAR(20) NOT NULL;
@@ -0,0 +1,129 @@
+package com.btalk.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.btalk.websocket.ConversationMembershipCache;
+import com.btalk.websocket.EncodedMessageSender;
+
+class DestinationAuthorizationInterceptorTests {
+
+    private final ConversationMembershipCache membershipCache = mock(ConversationMembershipCache.class);
+    private final EncodedMessageSender encodedMessageSender = mock(EncodedMessageSender.class);
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final Principal alice = () -> "alice";
+    private DestinationAuthorizationInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new DestinationAuthorizationInterceptor(membershipCache, encodedMessageSender,
+                Set.of("/topic/announcements"));
+        when(membershipCache.isParticipant("alice", "c1")).thenReturn(true);
+    }
+
+    @Test
+    void participantMaySubscribeToConversationAndCallTopics() {
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/topic/conversation/c1/messages");
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/topic/call/c1/signals");
+    }
+
+    @Test
+    void nonParticipantMayNotSubscribeToConversationTopics() {
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/conversation/c2/messages");
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/call/c2/signals");
+        verify(encodedMessageSender, times(2)).send(eq("/user/alice/queue/errors"), any(Object.class));
+    }
+
+    @Test
+    void wildcardSubscriptionsAreRefused() {
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/conversation/*/messages");
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/conversation/**");
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/conversation/");
+    }
+
+    @Test
+    void userAndApplicationSubscriptionsPassThrough() {
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/user/queue/notifications");
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/app/notifications/digest");
+    }
+
+    @Test
+    void onlyPublicBrokerTopicsMayBeSubscribedTo() {
+        assertAllowed(SimpMessageType.SUBSCRIBE, "/topic/announcements");
+        assertDenied(SimpMessageType.SUBSCRIBE, "/topic/internal");
+        assertDenied(SimpMessageType.SUBSCRIBE, "/queue/anything");
+    }
+
+    @Test
+    void sendsToChatRequireMembership() {
+        assertAllowed(SimpMessageType.MESSAGE, "/app/chat/c1/send");
+        assertDenied(SimpMessageType.MESSAGE, "/app/chat/c2/send");
+    }
+
+    @Test
+    void sendsGoToApplicationHandlersOnly() {
+        assertAllowed(SimpMessageType.MESSAGE, "/app/call/signal");
+        assertDenied(SimpMessageType.MESSAGE, "/topic/conversation/c1/messages");
+        assertDenied(SimpMessageType.MESSAGE, "/topic/announcements");
+    }
+
+    @Test
+    void anonymousFramesAreDeniedWithoutReply() {
+        Message<?> message = message(SimpMessageType.SUBSCRIBE, "/topic/announcements", null);
+
+        assertThat(interceptor.preSend(message, channel)).isNull();
+        verify(encodedMessageSender, never()).send(anyString(), any(Object.class));
+    }
+
+    @Test
+    void otherFrameTypesAreNotChecked() {
+        Message<?> message = message(SimpMessageType.UNSUBSCRIBE, "/topic/internal", alice);
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+        assertThat(interceptor.getCheckCount()).isZero();
+    }
+
+    @Test
+    void countsChecksAndDenials() {
+        interceptor.preSend(message(SimpMessageType.SUBSCRIBE, "/topic/conversation/c1/messages", alice), channel);
+        interceptor.preSend(message(SimpMessageType.SUBSCRIBE, "/topic/conversation/c2/messages", alice), channel);
+
+        assertThat(interceptor.getCheckCount()).isEqualTo(2);
+        assertThat(interceptor.getDeniedCount()).isEqualTo(1);
+    }
+
+    private void assertAllowed(SimpMessageType type, String destination) {
+        Message<?> message = message(type, destination, alice);
+        assertThat(interceptor.preSend(message, channel)).as("%s %s", type, destination).isSameAs(message);
+    }
+
+    private void assertDenied(SimpMessageType type, String destination) {
+        assertThat(interceptor.preSend(message(type, destination, alice), channel)).as("%s %s", type, destination).isNull();
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String destination, Principal user) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setDestination(destination);
+        accessor.setSessionId("s1");
+        accessor.setUser(user);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,81 @@
+package com.btalk.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HandOffExecutorTests {
+
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 10, 8);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    // Rejects the first `rejections` submissions, then runs tasks on a new thread
+    private static Executor rejecting(int rejections, AtomicInteger submissions) {
+        return task -> {
+            if (submissions.incrementAndGet() <= rejections) {
+                throw new RejectedExecutionException("saturated");
+            }
+            new Thread(task, "pool").start();
+        };
+    }
+
+    @Test
+    void rejectedTaskIsRetriedFromTheWheel() throws InterruptedException {
+        AtomicInteger submissions = new AtomicInteger();
+        HandOffExecutor executor = new HandOffExecutor("test", rejecting(2, submissions), wheel, 10, 5);
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicReference<String> ranOn = new AtomicReference<>();
+
+        executor.execute(() -> {
+            ranOn.set(Thread.currentThread().getName());
+            ran.countDown();
+        });
+
+        assertThat(ran.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(ranOn.get()).isEqualTo("pool");
+        assertThat(submissions.get()).isEqualTo(3);
+        assertThat(executor.getRetriedCount()).isEqualTo(2);
+        assertThat(executor.getDroppedCount()).isZero();
+    }
+
+    @Test
+    void taskIsDroppedAfterMaxAttemptsAndNeverRunsOnTheCaller() throws InterruptedException {
+        AtomicInteger submissions = new AtomicInteger();
+        AtomicInteger runs = new AtomicInteger();
+        HandOffExecutor executor = new HandOffExecutor("test", rejecting(Integer.MAX_VALUE, submissions), wheel, 10, 3);
+
+        executor.execute(runs::incrementAndGet);
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (executor.getDroppedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.getDroppedCount()).isEqualTo(1);
+        assertThat(submissions.get()).isEqualTo(3);
+        assertThat(runs.get()).isZero();
+    }
+
+    @Test
+    void taskIsDroppedOnceTheWheelHasStopped() {
+        AtomicInteger submissions = new AtomicInteger();
+        HandOffExecutor executor = new HandOffExecutor("test", rejecting(Integer.MAX_VALUE, submissions), wheel, 10, 3);
+        wheel.stop();
+
+        executor.execute(() -> { });
+
+        assertThat(executor.getDroppedCount()).isEqualTo(1);
+        assertThat(submissions.get()).isEqualTo(1);
+    }
+}
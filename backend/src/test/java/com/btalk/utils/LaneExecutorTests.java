@@ -0,0 +1,127 @@
+package com.btalk.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LaneExecutorTests {
+
+    private final LaneExecutor executor = new LaneExecutor("test-lane-", 4, 1_000);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void tasksOfOneLaneRunInSubmissionOrder() throws InterruptedException {
+        int lanes = 8;
+        int perLane = 200;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(lanes * perLane);
+
+        for (int i = 0; i < perLane; i++) {
+            for (int lane = 0; lane < lanes; lane++) {
+                String key = "conversation-" + lane;
+                int sequence = i;
+                executor.execute(key, () -> {
+                    seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        for (List<Integer> sequences : seen.values()) {
+            assertThat(sequences).isSorted().hasSize(perLane);
+        }
+    }
+
+    @Test
+    void tasksOfOneLaneNeverOverlap() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            executor.execute("conversation", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void failingTaskDoesNotBlockTheLane() throws InterruptedException {
+        CountDownLatch next = new CountDownLatch(1);
+
+        executor.execute("conversation", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute("conversation", next::countDown);
+
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void fullLaneRejectsWhileOtherLanesAccept() throws InterruptedException {
+        LaneExecutor bounded = new LaneExecutor("test-bounded-", 2, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            bounded.execute("busy", () -> await(release));
+            bounded.execute("busy", () -> { });
+
+            assertThatThrownBy(() -> bounded.execute("busy", () -> { }))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(bounded.getLaneDepth("busy")).isEqualTo(2);
+
+            CountDownLatch other = new CountDownLatch(1);
+            bounded.execute("other", other::countDown);
+            release.countDown();
+            assertThat(other.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    void drainedLanesAreForgotten() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute("conversation", done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        // The depth is released right after the task body returns
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveLaneCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(executor.getActiveLaneCount()).isZero();
+        assertThat(executor.getPendingTaskCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.btalk.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+    // 8 slots of 10 ms: one revolution is 80 ms
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 10, 8);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void runsTaskNoEarlierThanItsDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong firedAt = new AtomicLong();
+        long scheduledAt = System.nanoTime();
+
+        wheel.schedule(50, () -> {
+            firedAt.set(System.nanoTime());
+            fired.countDown();
+        });
+
+        assertThat(fired.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(firedAt.get() - scheduledAt)).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void delayLongerThanOneRevolutionWaitsForItsRound() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long scheduledAt = System.nanoTime();
+
+        wheel.schedule(200, fired::countDown);
+
+        assertThat(fired.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt)).isGreaterThanOrEqualTo(200);
+    }
+
+    @Test
+    void cancelledTaskNeverRuns() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        TimingWheel.Timeout timeout = wheel.schedule(30, () -> ran.set(true));
+        timeout.cancel();
+        wheel.schedule(60, later::countDown);
+
+        assertThat(later.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(timeout.isCancelled()).isTrue();
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+
+        wheel.schedule(10, () -> {
+            throw new IllegalStateException("boom");
+        });
+        wheel.schedule(30, fired::countDown);
+
+        assertThat(fired.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void stoppedWheelRejectsNewTasks() {
+        wheel.stop();
+
+        assertThatThrownBy(() -> wheel.schedule(10, () -> { }))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,213 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.btalk.constants.CallStatus;
+import com.btalk.constants.CallType;
+import com.btalk.utils.TimingWheel;
+import com.btalk.websocket.ActiveCallRegistry.ActiveCall;
+
+class ActiveCallRegistryTests {
+
+    private TimingWheel timingWheel;
+    private ActiveCallRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new TimingWheel("test-wheel", 10, 64);
+        registry = new ActiveCallRegistry(timingWheel);
+        ReflectionTestUtils.setField(registry, "ringTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(registry, "maxDurationMs", 60_000L);
+        ReflectionTestUtils.setField(registry, "sweepIntervalMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    private static ActiveCall privateCall(String callId, String callerId, String recipientId) {
+        return new ActiveCall(callId, callerId, recipientId, null, CallType.PRIVATE);
+    }
+
+    private static ActiveCall groupCall(String callId, String callerId) {
+        return new ActiveCall(callId, callerId, null, "conv-1", CallType.GROUP);
+    }
+
+    @Test
+    void registerMarksCallerAndRecipientBusy() {
+        assertThat(registry.register(privateCall("c1", "alice", "bob"), call -> { })).isTrue();
+
+        assertThat(registry.isBusy("alice")).isTrue();
+        assertThat(registry.isBusy("bob")).isTrue();
+        assertThat(registry.callOf("bob").getCallId()).isEqualTo("c1");
+        assertThat(registry.get("c1").getStatus()).isEqualTo(CallStatus.RINGING);
+    }
+
+    @Test
+    void registerRollsBackWhenAUserIsInAnotherCall() {
+        registry.register(privateCall("c1", "alice", "bob"), call -> { });
+
+        assertThat(registry.register(privateCall("c2", "carol", "bob"), call -> { })).isFalse();
+
+        assertThat(registry.get("c2")).isNull();
+        assertThat(registry.isBusy("carol")).isFalse();
+        assertThat(registry.callOf("bob").getCallId()).isEqualTo("c1");
+    }
+
+    @Test
+    void onlyOneConcurrentAnswerWins() throws Exception {
+        registry.register(privateCall("c1", "alice", "bob"), call -> { });
+        CountDownLatch start = new CountDownLatch(1);
+
+        CompletableFuture<ActiveCall> first = CompletableFuture.supplyAsync(() -> {
+            awaitQuietly(start);
+            return registry.answer("c1", "bob");
+        });
+        CompletableFuture<ActiveCall> second = CompletableFuture.supplyAsync(() -> {
+            awaitQuietly(start);
+            return registry.answer("c1", "bob");
+        });
+        start.countDown();
+
+        long winners = Stream.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS))
+                .filter(Objects::nonNull)
+                .count();
+        assertThat(winners).isEqualTo(1);
+        assertThat(registry.get("c1").getStatus()).isEqualTo(CallStatus.ONGOING);
+    }
+
+    @Test
+    void groupJoinIsRejectedForAUserInAnotherCall() {
+        registry.register(groupCall("g1", "alice"), call -> { });
+        registry.register(privateCall("c1", "carol", "dave"), call -> { });
+        assertThat(registry.answer("g1", "bob")).isNotNull();
+
+        assertThat(registry.answer("g1", "carol")).isNull();
+
+        assertThat(registry.callOf("carol").getCallId()).isEqualTo("c1");
+        assertThat(registry.get("g1").getParticipants()).containsExactlyInAnyOrder("alice", "bob");
+    }
+
+    @Test
+    void answerAfterHangUpLeavesNoBusyEntry() {
+        registry.register(groupCall("g1", "alice"), call -> { });
+        registry.answer("g1", "bob");
+        ActiveCall call = registry.get("g1");
+
+        assertThat(registry.hangUp("g1")).isSameAs(call);
+        assertThat(registry.answer("g1", "carol")).isNull();
+
+        assertThat(registry.isBusy("alice")).isFalse();
+        assertThat(registry.isBusy("bob")).isFalse();
+        assertThat(registry.isBusy("carol")).isFalse();
+    }
+
+    @Test
+    void hangUpReleasesEveryoneOnce() {
+        registry.register(privateCall("c1", "alice", "bob"), call -> { });
+        registry.answer("c1", "bob");
+
+        ActiveCall ended = registry.hangUp("c1");
+
+        assertThat(ended.getStatus()).isEqualTo(CallStatus.ENDED);
+        assertThat(registry.hangUp("c1")).isNull();
+        assertThat(registry.getActiveCallCount()).isZero();
+        assertThat(registry.isBusy("alice")).isFalse();
+        assertThat(registry.isBusy("bob")).isFalse();
+    }
+
+    @Test
+    void unansweredCallBecomesMissed() throws Exception {
+        ReflectionTestUtils.setField(registry, "ringTimeoutMs", 50L);
+        AtomicReference<ActiveCall> timedOut = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        registry.register(privateCall("c1", "alice", "bob"), call -> {
+            timedOut.set(call);
+            done.countDown();
+        });
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(timedOut.get().getStatus()).isEqualTo(CallStatus.MISSED);
+        assertThat(registry.isBusy("alice")).isFalse();
+        assertThat(registry.isBusy("bob")).isFalse();
+    }
+
+    @Test
+    void sweepEndsCallsPastTheMaximumDuration() {
+        ReflectionTestUtils.setField(registry, "maxDurationMs", 1_000L);
+        AtomicReference<ActiveCall> timedOut = new AtomicReference<>();
+        registry.register(privateCall("c1", "alice", "bob"), timedOut::set);
+        ActiveCall call = registry.answer("c1", "bob");
+        registry.register(privateCall("c2", "carol", "dave"), timedOut::set);
+        registry.answer("c2", "dave");
+
+        ReflectionTestUtils.setField(call, "answeredAt", LocalDateTime.now().minusSeconds(5));
+        registry.sweepExpired();
+
+        assertThat(timedOut.get()).isSameAs(call);
+        assertThat(call.getStatus()).isEqualTo(CallStatus.ENDED);
+        assertThat(registry.isBusy("alice")).isFalse();
+        assertThat(registry.isBusy("bob")).isFalse();
+        assertThat(registry.get("c2").getStatus()).isEqualTo(CallStatus.ONGOING);
+    }
+
+    @Test
+    void sweepEndsEveryExpiredCallEvenIfACallbackFails() {
+        ReflectionTestUtils.setField(registry, "maxDurationMs", 1_000L);
+        List<String> timedOut = new ArrayList<>();
+        Consumer<ActiveCall> failing = call -> {
+            timedOut.add(call.getCallId());
+            throw new IllegalStateException("executor gone");
+        };
+        registry.register(privateCall("c1", "alice", "bob"), failing);
+        registry.register(privateCall("c2", "carol", "dave"), failing);
+        for (String callId : List.of("c1", "c2")) {
+            ActiveCall call = registry.answer(callId, callId.equals("c1") ? "bob" : "dave");
+            ReflectionTestUtils.setField(call, "answeredAt", LocalDateTime.now().minusSeconds(5));
+        }
+
+        registry.sweepExpired();
+
+        assertThat(timedOut).containsExactlyInAnyOrder("c1", "c2");
+        assertThat(registry.getActiveCallCount()).isZero();
+    }
+
+    @Test
+    void leaveKeepsTheGroupCallGoing() {
+        registry.register(groupCall("g1", "alice"), call -> { });
+        registry.answer("g1", "bob");
+
+        assertThat(registry.leave("g1", "bob")).isTrue();
+        assertThat(registry.leave("g1", "bob")).isFalse();
+
+        assertThat(registry.isBusy("bob")).isFalse();
+        assertThat(registry.isBusy("alice")).isTrue();
+        assertThat(registry.get("g1").getStatus()).isEqualTo(CallStatus.ONGOING);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
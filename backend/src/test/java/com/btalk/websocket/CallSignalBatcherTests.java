@@ -0,0 +1,120 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.btalk.constants.SignalType;
+import com.btalk.dto.CallSignal;
+import com.btalk.utils.TimingWheel;
+
+class CallSignalBatcherTests {
+
+    private static final String DESTINATION = "/user/bob/queue/call/signal";
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private TimingWheel timingWheel;
+    private CallSignalBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new TimingWheel("test-wheel", 10, 64);
+        batcher = new CallSignalBatcher(messagingTemplate, taskScheduler, timingWheel, true, 20, 3, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    private static CallSignal signal(SignalType type, Object payload) {
+        CallSignal signal = new CallSignal();
+        signal.setCallId("c1");
+        signal.setCallerId("alice");
+        signal.setRecipientId("bob");
+        signal.setType(type);
+        signal.setPayload(payload);
+        return signal;
+    }
+
+    private List<CallSignal> sentSignals(int count) {
+        ArgumentCaptor<CallSignal> sent = ArgumentCaptor.forClass(CallSignal.class);
+        verify(messagingTemplate, times(count)).convertAndSend(eq(DESTINATION), sent.capture());
+        return sent.getAllValues();
+    }
+
+    @Test
+    void candidatesAreHeldUntilTheScheduledFlush() {
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-1"));
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-2"));
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(flush.capture(), any(Instant.class));
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+
+        flush.getValue().run();
+        flush.getValue().run();
+
+        CallSignal batched = sentSignals(1).get(0);
+        assertThat(batched.getType()).isEqualTo(SignalType.CANDIDATE);
+        assertThat(batched.getPayload()).isNull();
+        assertThat(batched.getCandidates()).containsExactly("cand-1", "cand-2");
+    }
+
+    @Test
+    void otherSignalsFlushHeldCandidatesFirst() {
+        batcher.forward(DESTINATION, signal(SignalType.OFFER, "offer"));
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-1"));
+        batcher.forward(DESTINATION, signal(SignalType.HANGUP, null));
+
+        List<CallSignal> sent = sentSignals(3);
+        assertThat(sent).extracting(CallSignal::getType)
+                .containsExactly(SignalType.OFFER, SignalType.CANDIDATE, SignalType.HANGUP);
+        assertThat(sent.get(1).getCandidates()).containsExactly("cand-1");
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaiting() {
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-1"));
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-2"));
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-3"));
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-4"));
+
+        assertThat(sentSignals(1).get(0).getCandidates()).containsExactly("cand-1", "cand-2", "cand-3");
+
+        // The first batch's timer finds nothing of its own to send; the second batch has its own
+        ArgumentCaptor<Runnable> flushes = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(2)).schedule(flushes.capture(), any(Instant.class));
+        flushes.getAllValues().get(0).run();
+        verify(messagingTemplate, times(1)).convertAndSend(eq(DESTINATION), any(Object.class));
+
+        flushes.getAllValues().get(1).run();
+        assertThat(sentSignals(2).get(1).getCandidates()).containsExactly("cand-4");
+    }
+
+    @Test
+    void candidatesAreForwardedAtOnceWithBatchingDisabled() {
+        batcher = new CallSignalBatcher(messagingTemplate, taskScheduler, timingWheel, false, 20, 3, 60_000);
+
+        batcher.forward(DESTINATION, signal(SignalType.CANDIDATE, "cand-1"));
+
+        assertThat(sentSignals(1).get(0).getPayload()).isEqualTo("cand-1");
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+}
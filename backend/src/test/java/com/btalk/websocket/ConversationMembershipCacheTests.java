@@ -0,0 +1,60 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.btalk.repository.ParticipantRepository;
+
+class ConversationMembershipCacheTests {
+
+    private final ParticipantRepository participantRepository = mock(ParticipantRepository.class);
+
+    @Test
+    void loadsOnceAndAppliesSingleChangesInPlace() {
+        when(participantRepository.findUserIdsByConversationId("conv-1")).thenReturn(List.of("alice", "bob"));
+        ConversationMembershipCache cache = new ConversationMembershipCache(participantRepository, 10);
+
+        assertThat(cache.getParticipantIds("conv-1")).containsExactlyInAnyOrder("alice", "bob");
+        cache.addParticipant("conv-1", "carol");
+
+        assertThat(cache.getParticipantIds("conv-1")).containsExactlyInAnyOrder("alice", "bob", "carol");
+        verify(participantRepository, times(1)).findUserIdsByConversationId("conv-1");
+    }
+
+    @Test
+    void dropsAnEntryWhenFull() {
+        when(participantRepository.findConversationIdsByUserId(anyString())).thenReturn(List.of("conv-1"));
+        ConversationMembershipCache cache = new ConversationMembershipCache(participantRepository, 1);
+
+        cache.getConversationIds("alice");
+        cache.getConversationIds("bob");
+        cache.getConversationIds("bob");
+        cache.getConversationIds("alice");
+
+        verify(participantRepository, times(2)).findConversationIdsByUserId("alice");
+        verify(participantRepository, times(1)).findConversationIdsByUserId("bob");
+    }
+
+    @Test
+    void loadOverlappingAChangeIsNotCached() {
+        ConversationMembershipCache cache = new ConversationMembershipCache(participantRepository, 10);
+        when(participantRepository.findConversationIdsByUserId("alice")).thenAnswer(invocation -> {
+            // The membership changes while the query is running
+            cache.evict("conv-2", List.of("alice"));
+            return List.of("conv-1");
+        });
+
+        assertThat(cache.getConversationIds("alice")).containsExactly("conv-1");
+        cache.getConversationIds("alice");
+
+        verify(participantRepository, times(2)).findConversationIdsByUserId("alice");
+    }
+}
@@ -0,0 +1,87 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.Principal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+class ConversationSubscriptionRegistryTests {
+
+    private final ConversationSubscriptionRegistry registry = new ConversationSubscriptionRegistry();
+    private final Principal alice = () -> "alice";
+
+    @Test
+    void subscribingToMessagesMarksUserAsViewing() {
+        registry.handleSubscribe(subscribe("s1", "sub-1", "/topic/conversation/c1/messages"));
+
+        assertThat(registry.isViewing("alice", "c1")).isTrue();
+        assertThat(registry.isViewing("alice", "c2")).isFalse();
+        assertThat(registry.isViewing("bob", "c1")).isFalse();
+    }
+
+    @Test
+    void otherDestinationsAreIgnored() {
+        registry.handleSubscribe(subscribe("s1", "sub-1", "/topic/conversation/c1/typing"));
+
+        assertThat(registry.isViewing("alice", "c1")).isFalse();
+    }
+
+    @Test
+    void unsubscribeStopsViewing() {
+        registry.handleSubscribe(subscribe("s1", "sub-1", "/topic/conversation/c1/messages"));
+        registry.handleSubscribe(subscribe("s1", "sub-2", "/topic/conversation/c2/messages"));
+
+        registry.handleUnsubscribe(unsubscribe("s1", "sub-1"));
+
+        assertThat(registry.isViewing("alice", "c1")).isFalse();
+        assertThat(registry.isViewing("alice", "c2")).isTrue();
+    }
+
+    @Test
+    void userKeepsViewingWhileAnotherSessionIsSubscribed() {
+        registry.handleSubscribe(subscribe("s1", "sub-1", "/topic/conversation/c1/messages"));
+        registry.handleSubscribe(subscribe("s2", "sub-1", "/topic/conversation/c1/messages"));
+
+        registry.handleDisconnect(disconnect("s1"));
+        assertThat(registry.isViewing("alice", "c1")).isTrue();
+
+        registry.handleDisconnect(disconnect("s2"));
+        assertThat(registry.isViewing("alice", "c1")).isFalse();
+    }
+
+    private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = headers(SimpMessageType.SUBSCRIBE, sessionId, subscriptionId);
+        accessor.setDestination(destination);
+        return new SessionSubscribeEvent(this, message(accessor), alice);
+    }
+
+    private SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId) {
+        return new SessionUnsubscribeEvent(this, message(headers(SimpMessageType.UNSUBSCRIBE, sessionId, subscriptionId)), alice);
+    }
+
+    private SessionDisconnectEvent disconnect(String sessionId) {
+        Message<byte[]> message = message(headers(SimpMessageType.DISCONNECT, sessionId, null));
+        return new SessionDisconnectEvent(this, message, sessionId, CloseStatus.NORMAL, alice);
+    }
+
+    private SimpMessageHeaderAccessor headers(SimpMessageType type, String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setUser(alice);
+        return accessor;
+    }
+
+    private static Message<byte[]> message(SimpMessageHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
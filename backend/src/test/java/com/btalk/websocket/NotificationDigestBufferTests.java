@@ -0,0 +1,115 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.btalk.constants.NotificationType;
+import com.btalk.dto.NotificationDigestDto;
+import com.btalk.dto.NotificationDto;
+
+class NotificationDigestBufferTests {
+
+    @Test
+    void aggregatesPerTypeAndConversation() {
+        NotificationDigestBuffer buffer = new NotificationDigestBuffer(60_000, 10);
+
+        buffer.record("alice", notification("first"), "c1");
+        buffer.record("alice", notification("second"), "c1");
+        buffer.record("alice", notification("other"), "c2");
+
+        NotificationDigestDto digest = buffer.drain("alice");
+        assertThat(digest.getTotalCount()).isEqualTo(3);
+        assertThat(digest.getEntries()).hasSize(2);
+        assertThat(digest.getEntries().get(0).getCount()).isEqualTo(2);
+        assertThat(digest.getEntries().get(0).getLatestTitle()).isEqualTo("second");
+        assertThat(buffer.drain("alice")).isNull();
+    }
+
+    @Test
+    void expiredDigestIsNotDelivered() throws InterruptedException {
+        NotificationDigestBuffer buffer = new NotificationDigestBuffer(1, 10);
+
+        buffer.record("alice", notification("old"), "c1");
+        Thread.sleep(5);
+
+        assertThat(buffer.drain("alice")).isNull();
+    }
+
+    @Test
+    void recordAfterExpiryStartsANewDigest() throws InterruptedException {
+        NotificationDigestBuffer buffer = new NotificationDigestBuffer(20, 10);
+
+        buffer.record("alice", notification("old"), "c1");
+        Thread.sleep(30);
+        buffer.record("alice", notification("new"), "c1");
+
+        NotificationDigestDto digest = buffer.drain("alice");
+        assertThat(digest.getTotalCount()).isEqualTo(1);
+        assertThat(digest.getEntries().get(0).getLatestTitle()).isEqualTo("new");
+    }
+
+    @Test
+    void holdsAtMostMaxUsers() {
+        NotificationDigestBuffer buffer = new NotificationDigestBuffer(60_000, 3);
+
+        for (int i = 0; i < 10; i++) {
+            buffer.record("user-" + i, notification("n"), "c1");
+        }
+
+        assertThat(buffer.getBufferedUserCount()).isEqualTo(3);
+        assertThat(buffer.drain("user-9")).isNotNull();
+    }
+
+    @Test
+    void concurrentRecordAndDrainLoseNothing() throws Exception {
+        NotificationDigestBuffer buffer = new NotificationDigestBuffer(60_000, 10);
+        int writers = 4;
+        int perWriter = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perWriter; i++) {
+                    buffer.record("alice", notification("n"), "c1");
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        long drained = 0;
+        while (!futures.stream().allMatch(Future::isDone)) {
+            drained += totalOf(buffer.drain("alice"));
+        }
+        drained += totalOf(buffer.drain("alice"));
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(drained).isEqualTo((long) writers * perWriter);
+    }
+
+    private static int totalOf(NotificationDigestDto digest) {
+        return digest != null ? digest.getTotalCount() : 0;
+    }
+
+    private static NotificationDto notification(String title) {
+        return NotificationDto.builder()
+                .type(NotificationType.NEW_MESSAGE)
+                .title(title)
+                .message(title)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
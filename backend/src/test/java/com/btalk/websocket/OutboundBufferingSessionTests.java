@@ -0,0 +1,162 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.btalk.websocket.OutboundBufferingSession.Policy;
+
+class OutboundBufferingSessionTests {
+
+    private static final Function<String, Policy> CLASSIFIER = destination -> {
+        if (destination.equals("/user/queue/unread-count")) {
+            return Policy.COALESCE;
+        }
+        if (destination.endsWith("/read")) {
+            return Policy.DROP_OLDEST;
+        }
+        return Policy.CRITICAL;
+    };
+
+    private final WebSocketSession delegate = mock(WebSocketSession.class);
+    private final List<String> written = new ArrayList<>();
+    // Tasks run only when the test says so, so frames pile up as behind a slow socket
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+    private final Executor executor = tasks::add;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(delegate.isOpen()).thenReturn(true);
+        when(delegate.getId()).thenReturn("s1");
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            written.add(((TextMessage) message).getPayload());
+            return null;
+        }).when(delegate).sendMessage(any());
+    }
+
+    @Test
+    void writesFramesInOrder() throws Exception {
+        OutboundBufferingSession session = session(1_000, 10_000);
+
+        session.sendMessage(frame("/topic/conversation/c1/messages", "1"));
+        session.sendMessage(frame("/topic/conversation/c1/messages", "2"));
+        runTasks();
+
+        assertThat(bodies()).containsExactly("1", "2");
+        assertThat(session.getSentFrames()).isEqualTo(2);
+        assertThat(session.getQueuedFrames()).isZero();
+    }
+
+    @Test
+    void coalescedFramesKeepOnlyTheLatestValueInPlace() throws Exception {
+        OutboundBufferingSession session = session(1_000, 10_000);
+
+        session.sendMessage(frame("/user/queue/unread-count", "1"));
+        session.sendMessage(frame("/topic/conversation/c1/messages", "hello"));
+        session.sendMessage(frame("/user/queue/unread-count", "2"));
+        session.sendMessage(frame("/user/queue/unread-count", "3"));
+        runTasks();
+
+        assertThat(bodies()).containsExactly("3", "hello");
+        assertThat(session.getCoalescedFrames()).isEqualTo(2);
+    }
+
+    @Test
+    void droppableFramesAreShedOldestFirstPastTheThreshold() throws Exception {
+        int frameSize = frame("/topic/conversation/c1/read", "r0").getPayloadLength();
+        OutboundBufferingSession session = session(frameSize * 3, 10_000);
+
+        session.sendMessage(frame("/topic/conversation/c1/messages", "m0"));
+        for (int i = 0; i < 5; i++) {
+            session.sendMessage(frame("/topic/conversation/c1/read", "r" + i));
+        }
+        runTasks();
+
+        assertThat(bodies()).contains("m0", "r4").doesNotContain("r0", "r1");
+        assertThat(session.getDroppedFrames()).isPositive();
+    }
+
+    @Test
+    void criticalFramesAreNeverShed() throws Exception {
+        int frameSize = frame("/topic/conversation/c1/messages", "m0").getPayloadLength();
+        OutboundBufferingSession session = session(frameSize, 10_000);
+
+        for (int i = 0; i < 5; i++) {
+            session.sendMessage(frame("/topic/conversation/c1/messages", "m" + i));
+        }
+        runTasks();
+
+        assertThat(bodies()).containsExactly("m0", "m1", "m2", "m3", "m4");
+        assertThat(session.getDroppedFrames()).isZero();
+    }
+
+    @Test
+    void criticalBacklogPastTheLimitClosesTheSession() throws Exception {
+        int frameSize = frame("/topic/conversation/c1/messages", "m0").getPayloadLength();
+        OutboundBufferingSession session = session(frameSize, frameSize * 2);
+
+        for (int i = 0; i < 3; i++) {
+            session.sendMessage(frame("/topic/conversation/c1/messages", "m" + i));
+        }
+        runTasks();
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void rejectedDrainClosesTheSession() throws Exception {
+        Executor saturated = task -> {
+            throw new RejectedExecutionException("full");
+        };
+        OutboundBufferingSession session = new OutboundBufferingSession(delegate, saturated, CLASSIFIER,
+                1_000, 10_000, 10_000);
+
+        session.sendMessage(frame("/topic/conversation/c1/messages", "m0"));
+        session.sendMessage(frame("/topic/conversation/c1/messages", "m1"));
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(delegate, never()).sendMessage(any());
+    }
+
+    private OutboundBufferingSession session(int shedThresholdBytes, int bufferSizeLimit) {
+        return new OutboundBufferingSession(delegate, executor, CLASSIFIER, shedThresholdBytes, bufferSizeLimit, 10_000);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private List<String> bodies() {
+        return written.stream()
+                .map(payload -> payload.substring(payload.indexOf("\n\n") + 2, payload.length() - 1))
+                .toList();
+    }
+
+    private static TextMessage frame(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\n\n" + body + "\0");
+    }
+}
@@ -0,0 +1,119 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.btalk.constants.UserStatus;
+import com.btalk.service.UserService;
+import com.btalk.utils.TimingWheel;
+
+class PresenceRegistryTests {
+
+    private final UserService userService = mock(UserService.class);
+    private final PresenceBroadcaster broadcaster = mock(PresenceBroadcaster.class);
+    private final WebSocketSessionTracker sessionTracker = mock(WebSocketSessionTracker.class);
+    private TimingWheel timingWheel;
+    private PresenceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new TimingWheel("test-wheel", 10, 64);
+        registry = new PresenceRegistry(userService, broadcaster, timingWheel, sessionTracker, Runnable::run);
+        ReflectionTestUtils.setField(registry, "offlineGraceMs", 100L);
+        ReflectionTestUtils.setField(registry, "awayAfterMs", 60_000L);
+        ReflectionTestUtils.setField(registry, "deadAfterMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    void onlyTheFirstSessionBringsTheUserOnline() {
+        assertThat(registry.connect("alice", "s1", 0)).isTrue();
+        assertThat(registry.connect("alice", "s2", 0)).isFalse();
+
+        assertThat(registry.getSessionCount("alice")).isEqualTo(2);
+        assertThat(registry.getStatus("alice")).isEqualTo(UserStatus.ONLINE);
+        verify(broadcaster).broadcast("alice", UserStatus.ONLINE);
+    }
+
+    @Test
+    void onlyTheLastSessionStartsGoingOffline() {
+        registry.connect("alice", "s1", 0);
+        registry.connect("alice", "s2", 0);
+
+        assertThat(registry.disconnect("alice", "s1")).isFalse();
+        assertThat(registry.disconnect("alice", "s2")).isTrue();
+        // Repeated disconnect events for the same session are ignored
+        assertThat(registry.disconnect("alice", "s2")).isFalse();
+    }
+
+    @Test
+    void userGoesOfflineAfterTheGracePeriod() {
+        registry.connect("alice", "s1", 0);
+        registry.disconnect("alice", "s1");
+
+        assertThat(registry.isOnline("alice")).isTrue();
+        verify(broadcaster, timeout(1_000)).broadcast("alice", UserStatus.OFFLINE);
+        assertThat(registry.isOnline("alice")).isFalse();
+        assertThat(registry.getStatus("alice")).isEqualTo(UserStatus.OFFLINE);
+    }
+
+    @Test
+    void reconnectWithinTheGracePeriodIsSilent() {
+        registry.connect("alice", "s1", 0);
+        registry.disconnect("alice", "s1");
+
+        assertThat(registry.connect("alice", "s2", 0)).isFalse();
+
+        verify(broadcaster, after(300).never()).broadcast(anyString(), eq(UserStatus.OFFLINE));
+        verify(broadcaster).broadcast("alice", UserStatus.ONLINE);
+        assertThat(registry.getStatus("alice")).isEqualTo(UserStatus.ONLINE);
+    }
+
+    @Test
+    void statusChangesAreFlushedInOneBatch() {
+        registry.connect("alice", "s1", 0);
+        registry.connect("bob", "s2", 0);
+
+        registry.flushPendingStatuses();
+        registry.flushPendingStatuses();
+
+        verify(userService).updateUserStatuses(
+                argThat(ids -> ids.containsAll(List.of("alice", "bob")) && ids.size() == 2),
+                eq(UserStatus.ONLINE));
+        verify(userService, never()).updateUserStatuses(anyCollection(), eq(UserStatus.OFFLINE));
+    }
+
+    @Test
+    void lastSeenFlushEvictsOnlyUsersWithoutSessions() {
+        registry.connect("alice", "s1", 0);
+        registry.connect("bob", "s2", 0);
+        registry.disconnect("bob", "s2");
+        verify(broadcaster, timeout(1_000)).broadcast("bob", UserStatus.OFFLINE);
+
+        // Persists both last-seen times, then drops the user who is fully offline
+        registry.flushLastSeen();
+
+        assertThat(registry.getLastSeen("bob")).isNull();
+        assertThat(registry.getLastSeen("alice")).isNotNull();
+        assertThat(registry.getSessionCount("alice")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,111 @@
+package com.btalk.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.btalk.dto.TypingDto;
+import com.btalk.utils.TimingWheel;
+
+class TypingTrackerTests {
+
+    private static final String TOPIC = "/topic/conversation/c1/typing";
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final ConversationMembershipCache membershipCache = mock(ConversationMembershipCache.class);
+    private TimingWheel timingWheel;
+    private TypingTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new TimingWheel("test-wheel", 10, 64);
+        tracker = new TypingTracker(timingWheel, messagingTemplate, membershipCache);
+        ReflectionTestUtils.setField(tracker, "ttlMs", 500L);
+        ReflectionTestUtils.setField(tracker, "throttleMs", 50L);
+        ReflectionTestUtils.setField(tracker, "broadcastIntervalMs", 100L);
+        when(membershipCache.isParticipant(anyString(), anyString())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    void ignoresNonParticipants() {
+        when(membershipCache.isParticipant("mallory", "c1")).thenReturn(false);
+
+        tracker.onTyping("c1", "mallory", true);
+
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void firstChangeIsBroadcastImmediately() {
+        tracker.onTyping("c1", "alice", true);
+
+        assertThat(broadcasts(1)).containsExactly(Set.of("alice"));
+    }
+
+    @Test
+    void changesWithinTheIntervalAreCoalesced() {
+        tracker.onTyping("c1", "alice", true);
+        tracker.onTyping("c1", "bob", true);
+        tracker.onTyping("c1", "carol", true);
+
+        verify(messagingTemplate, timeout(1_000).times(2)).convertAndSend(anyString(), any(Object.class));
+        assertThat(broadcasts(2)).containsExactly(Set.of("alice"), Set.of("alice", "bob", "carol"));
+    }
+
+    @Test
+    void refreshWithinTheThrottleIsIgnored() {
+        tracker.onTyping("c1", "alice", true);
+        tracker.onTyping("c1", "alice", true);
+
+        verify(messagingTemplate, after(800).times(2)).convertAndSend(anyString(), any(Object.class));
+        // The second broadcast is the expiry, not the repeated frame
+        assertThat(broadcasts(2)).containsExactly(Set.of("alice"), Set.of());
+    }
+
+    @Test
+    void entryExpiresWithoutRefresh() {
+        tracker.onTyping("c1", "alice", true);
+
+        verify(messagingTemplate, timeout(2_000).times(2)).convertAndSend(anyString(), any(Object.class));
+        assertThat(broadcasts(2)).containsExactly(Set.of("alice"), Set.of());
+    }
+
+    @Test
+    void stoppingRemovesTheUser() {
+        tracker.onTyping("c1", "alice", true);
+        tracker.onTyping("c1", "bob", true);
+        tracker.onTyping("c1", "alice", false);
+
+        verify(messagingTemplate, timeout(1_000).times(2)).convertAndSend(anyString(), any(Object.class));
+        assertThat(broadcasts(2)).containsExactly(Set.of("alice"), Set.of("bob"));
+    }
+
+    private List<Set<String>> broadcasts(int expected) {
+        ArgumentCaptor<TypingDto> captor = ArgumentCaptor.forClass(TypingDto.class);
+        verify(messagingTemplate, times(expected)).convertAndSend(eq(TOPIC), captor.capture());
+        return captor.getAllValues().stream().map(TypingDto::getTypingUserIds).toList();
+    }
+}
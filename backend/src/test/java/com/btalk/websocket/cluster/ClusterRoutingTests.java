@@ -0,0 +1,134 @@
+package com.btalk.websocket.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Nodes wired together over a {@link LoopbackClusterBus}, each with its own
+ * interceptor, receiver and (mocked) broker channel.
+ */
+class ClusterRoutingTests {
+
+    private final String group = "test-" + UUID.randomUUID();
+    private final List<Node> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(node -> node.bus.close());
+    }
+
+    private Node node(String nodeId) {
+        Node node = new Node(group, nodeId);
+        nodes.add(node);
+        return node;
+    }
+
+    private static Message<byte[]> brokerMessage(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage("hello".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    @Test
+    void topicMessagesReachEveryOtherNode() {
+        Node a = node("a");
+        Node b = node("b");
+        Node c = node("c");
+
+        a.interceptor.preSend(brokerMessage("/topic/conversation/1/messages"), a.brokerChannel);
+
+        for (Node other : List.of(b, c)) {
+            Message<?> relayed = other.received();
+            assertThat(SimpMessageHeaderAccessor.getDestination(relayed.getHeaders()))
+                    .isEqualTo("/topic/conversation/1/messages");
+            assertThat(relayed.getHeaders().get(ClusterBrokerInterceptor.RELAYED_HEADER)).isEqualTo("a");
+            assertThat((byte[]) relayed.getPayload()).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+        }
+        verify(a.brokerChannel, never()).send(any());
+    }
+
+    @Test
+    void userMessagesReachOnlyTheNodesHoldingTheUser() {
+        Node a = node("a");
+        Node b = node("b");
+        Node c = node("c");
+        a.userRegistry.onUserJoined("c", "bob");
+
+        a.interceptor.preSend(brokerMessage("/user/bob/queue/call/ended"), a.brokerChannel);
+
+        assertThat(SimpMessageHeaderAccessor.getDestination(c.received().getHeaders()))
+                .isEqualTo("/user/bob/queue/call/ended");
+        verify(b.brokerChannel, never()).send(any());
+    }
+
+    @Test
+    void userMessagesForUnknownUsersStayLocal() {
+        Node a = node("a");
+        Node b = node("b");
+
+        a.interceptor.preSend(brokerMessage("/user/bob/queue/call/ended"), a.brokerChannel);
+
+        verify(b.brokerChannel, never()).send(any());
+    }
+
+    @Test
+    void relayedMessagesAreNotForwardedAgain() {
+        Node a = node("a");
+        Node b = node("b");
+        Node c = node("c");
+        a.interceptor.preSend(brokerMessage("/topic/announcements"), a.brokerChannel);
+        Message<?> relayed = b.received();
+
+        // What node b's broker channel would run its interceptor on
+        b.interceptor.preSend(relayed, b.brokerChannel);
+
+        // c got the original once, and nothing came back to a
+        verify(c.brokerChannel).send(any());
+        verify(a.brokerChannel, never()).send(any());
+    }
+
+    private static final class Node {
+        private final LoopbackClusterBus bus;
+        private final MessageChannel brokerChannel = mock(MessageChannel.class);
+        private final ClusterUserRegistry userRegistry;
+        private final ClusterBrokerInterceptor interceptor;
+
+        private Node(String group, String nodeId) {
+            bus = new LoopbackClusterBus(group, nodeId);
+            SimpUserRegistry localUsers = mock(SimpUserRegistry.class);
+            userRegistry = new ClusterUserRegistry(localUsers, bus);
+            ReflectionTestUtils.setField(userRegistry, "nodeExpiryMs", 60_000L);
+            interceptor = new ClusterBrokerInterceptor(bus, userRegistry);
+            when(brokerChannel.send(any())).thenReturn(true);
+            new ClusterMessageReceiver(bus, userRegistry, brokerChannel).start();
+        }
+
+        private Message<?> received() {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            ArgumentCaptor<Message<?>> captor = ArgumentCaptor.forClass((Class) Message.class);
+            verify(brokerChannel).send(captor.capture());
+            return captor.getValue();
+        }
+    }
+}
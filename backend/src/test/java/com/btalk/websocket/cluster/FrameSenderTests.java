@@ -0,0 +1,96 @@
+package com.btalk.websocket.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class FrameSenderTests {
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private FrameSender sender;
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        if (sender != null) {
+            sender.close();
+        }
+    }
+
+    private static TcpClusterRelay.Frame frame(String body) {
+        return new TcpClusterRelay.Frame("", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Every write blocks until the test releases it, like a peer that stopped reading
+    private OutputStream blockingStream(CountDownLatch writing) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writing.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    throw new IOException("interrupted", e);
+                }
+            }
+        };
+    }
+
+    @Test
+    void writesQueuedFramesInOrder() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sender = new FrameSender("peer", new DataOutputStream(bytes), 10, 5_000, () -> { });
+
+        assertThat(sender.offer(frame("one"))).isTrue();
+        assertThat(sender.offer(frame("two"))).isTrue();
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (bytes.size() < 2 * (4 + 2 + 3) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String written = bytes.toString(StandardCharsets.UTF_8);
+        assertThat(written.indexOf("one")).isGreaterThanOrEqualTo(0).isLessThan(written.indexOf("two"));
+    }
+
+    @Test
+    void dropsFramesOnceTheQueueIsFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        sender = new FrameSender("peer", new DataOutputStream(blockingStream(writing)), 2, 60_000, () -> { });
+
+        // The sender thread takes the first frame and blocks writing it
+        assertThat(sender.offer(frame("first"))).isTrue();
+        assertThat(writing.await(2, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sender.offer(frame("second"))).isTrue();
+        assertThat(sender.offer(frame("third"))).isTrue();
+        assertThat(sender.offer(frame("fourth"))).isFalse();
+        assertThat(sender.getQueuedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void stalledWriteFailsThePeerAndDropsFurtherFrames() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        AtomicBoolean failed = new AtomicBoolean();
+        sender = new FrameSender("peer", new DataOutputStream(blockingStream(writing)), 10, 50,
+                () -> failed.set(true));
+
+        assertThat(sender.offer(frame("first"))).isTrue();
+        assertThat(writing.await(2, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+
+        assertThat(sender.offer(frame("second"))).isFalse();
+        assertThat(failed).isTrue();
+        assertThat(sender.offer(frame("third"))).isFalse();
+        assertThat(sender.getQueuedCount()).isZero();
+    }
+}
@@ -0,0 +1,106 @@
+package com.btalk.websocket.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TcpClusterRelayTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, TcpRelayClusterBus> buses = new LinkedHashMap<>();
+    private final Map<String, BlockingQueue<ClusterEnvelope>> received = new HashMap<>();
+    private TcpClusterRelay relay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        relay = new TcpClusterRelay(0, 100, 5_000);
+        relay.start();
+        for (String nodeId : List.of("n1", "n2", "n3")) {
+            TcpRelayClusterBus bus = new TcpRelayClusterBus(nodeId, "localhost", relay.getLocalPort(), objectMapper, 100, 5_000);
+            BlockingQueue<ClusterEnvelope> queue = new LinkedBlockingQueue<>();
+            bus.setListener(queue::add);
+            buses.put(nodeId, bus);
+            received.put(nodeId, queue);
+        }
+        awaitConnected();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buses.values().forEach(TcpRelayClusterBus::close);
+        relay.stop();
+    }
+
+    private static ClusterEnvelope message(String origin, String target, String destination) {
+        return ClusterEnvelope.builder()
+                .type(ClusterEnvelope.Type.BROKER_MESSAGE)
+                .originNodeId(origin)
+                .targetNodeId(target)
+                .destination(destination)
+                .payload(destination.getBytes())
+                .build();
+    }
+
+    // Nodes connect in the background; publish until every node has heard from every other one
+    private void awaitConnected() throws InterruptedException {
+        Map<String, Set<String>> heardFrom = new ConcurrentHashMap<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            buses.forEach((nodeId, bus) -> bus.publish(message(nodeId, null, "/topic/ping")));
+            Thread.sleep(50);
+            received.forEach((nodeId, queue) -> {
+                ClusterEnvelope envelope;
+                while ((envelope = queue.poll()) != null) {
+                    heardFrom.computeIfAbsent(nodeId, id -> ConcurrentHashMap.newKeySet()).add(envelope.getOriginNodeId());
+                }
+            });
+            if (buses.keySet().stream().allMatch(nodeId -> heardFrom.getOrDefault(nodeId, Set.of()).size() == 2)) {
+                // Let in-flight pings land before the test starts
+                Thread.sleep(100);
+                received.values().forEach(BlockingQueue::clear);
+                return;
+            }
+        }
+        throw new AssertionError("Nodes did not connect to the relay: " + heardFrom);
+    }
+
+    private ClusterEnvelope next(String nodeId) throws InterruptedException {
+        return received.get(nodeId).poll(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void broadcastReachesEveryOtherNodeButNotTheOrigin() throws Exception {
+        buses.get("n1").publish(message("n1", null, "/topic/conversation/1/messages"));
+
+        assertThat(next("n2").getDestination()).isEqualTo("/topic/conversation/1/messages");
+        assertThat(next("n3").getDestination()).isEqualTo("/topic/conversation/1/messages");
+        assertThat(received.get("n1").poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void targetedEnvelopeReachesOnlyItsNode() throws Exception {
+        buses.get("n1").publish(message("n1", "n3", "/user/bob/queue/call/ended"));
+        // Frames from one node are relayed in order, so once this arrives the targeted one would have too
+        buses.get("n1").publish(message("n1", null, "/topic/marker"));
+
+        ClusterEnvelope targeted = next("n3");
+        assertThat(targeted.getDestination()).isEqualTo("/user/bob/queue/call/ended");
+        assertThat(targeted.getPayload()).isEqualTo("/user/bob/queue/call/ended".getBytes());
+        assertThat(next("n3").getDestination()).isEqualTo("/topic/marker");
+        assertThat(next("n2").getDestination()).isEqualTo("/topic/marker");
+    }
+}
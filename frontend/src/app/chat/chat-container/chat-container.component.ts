@@ -1,7 +1,7 @@
 import { Component, inject, OnInit, OnDestroy, HostListener } from '@angular/core';
 import { CommonModule } from '@angular/common';
-import { Subject, Subscription } from 'rxjs';
-import { filter, takeUntil } from 'rxjs/operators';
+import { EMPTY, Subject, Subscription } from 'rxjs';
+import { filter, switchMap, takeUntil } from 'rxjs/operators';
 import { ChatService } from '../../services/chat.service';
 import { AuthService } from '../../services/auth.service';
 import { CallService } from '../../services/call.service';
@@ -43,6 +43,7 @@ export class ChatContainerComponent implements OnInit, OnDestroy {
   private currentUserId: string | null = null;
   incomingCall: CallRequest | null = null;
   private activeConversation: Conversation | null = null;
+  typingUserNames: string[] = [];
   
   // Mobile view state management
   currentView: 'conversations' | 'messages' = 'conversations';
@@ -98,6 +99,21 @@ export class ChatContainerComponent implements OnInit, OnDestroy {
       })
     );
 
+    // Typing indicator for the active conversation, excluding the current user
+    this.subscriptions.add(
+      this.chatService.activeConversation$.pipe(
+        switchMap(conv => {
+          this.typingUserNames = [];
+          return conv ? this.webSocketService.listenForTyping(conv.conversationId) : EMPTY;
+        }),
+        takeUntil(this.destroy$)
+      ).subscribe(event => {
+        this.typingUserNames = event.typingUserIds
+          .filter(userId => userId !== this.currentUserId)
+          .map(userId => this.activeConversation?.participants?.find(p => p.userId === userId)?.userName || 'Someone');
+      })
+    );
+
     // Check for existing call state on initialization
     const existingCall = this.callService.getCurrentCallState();
     if (existingCall) {
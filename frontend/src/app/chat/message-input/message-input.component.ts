@@ -12,6 +12,7 @@ import { HttpEvent, HttpEventType, HttpClient } from '@angular/common/http';
 import { Message } from '../../models/message';
 import { ApiResponse } from '../../models/api-response';
 import { AuthService } from '../../services/auth.service';
+import { WebSocketService } from '../../services/web-socket.service';
 
 @Component({
   selector: 'app-message-input',
@@ -28,6 +29,9 @@ export class MessageInputComponent {
   private authService = inject(AuthService);
   private audioChunks: Blob[] = [];
   private http = inject(HttpClient);
+  private webSocketService = inject(WebSocketService);
+  private lastTypingSentAt = 0;
+  private static readonly TYPING_RESEND_MS = 2000;
 
   messageContent = '';
   attachments: File[] = [];
@@ -128,6 +132,26 @@ private resetForm(): void {
   this.isUploading = false;
   this.cdRef.detectChanges();
 }
+  onTyping(): void {
+    const now = Date.now();
+    if (!this.messageContent || now - this.lastTypingSentAt < MessageInputComponent.TYPING_RESEND_MS) {
+      return;
+    }
+    this.lastTypingSentAt = now;
+    this.chatService.activeConversation$.pipe(take(1)).subscribe(activeConversation => {
+      if (activeConversation) {
+        this.webSocketService.sendTyping(activeConversation.conversationId, true);
+      }
+    });
+  }
+
+  private stopTyping(conversationId: string): void {
+    if (this.lastTypingSentAt) {
+      this.lastTypingSentAt = 0;
+      this.webSocketService.sendTyping(conversationId, false);
+    }
+  }
+
   sendMessage(): void {
     if (this.isUploading) return;
 
@@ -137,6 +161,7 @@ private resetForm(): void {
         if (!activeConversation || (!this.messageContent.trim() && this.attachments.length === 0)) {
           return;
         }
+        this.stopTyping(activeConversation.conversationId);
 
         if (this.attachments.length > 0) {
           this.uploadAttachments().then((message) => {
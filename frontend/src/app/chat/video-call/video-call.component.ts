@@ -509,12 +509,16 @@ export class VideoCallComponent implements OnInit, OnDestroy, AfterViewInit {
       )
       .subscribe(async (signal) => {
         if (!this.peerConnection) return;
-        try {
-          await this.peerConnection.addIceCandidate(
-            new RTCIceCandidate(signal.payload)
-          );
-        } catch (e) {
-          console.error('Error adding ICE candidate', e);
+        // The server may batch trickled candidates into one signal
+        const candidates = signal.candidates ?? [signal.payload];
+        for (const candidate of candidates) {
+          try {
+            await this.peerConnection.addIceCandidate(
+              new RTCIceCandidate(candidate)
+            );
+          } catch (e) {
+            console.error('Error adding ICE candidate', e);
+          }
         }
       });
 
@@ -92,6 +92,38 @@ export class NotificationBellComponent implements OnInit, OnDestroy {
         }
       });
 
+    // Subscribe to the offline digest sent after reconnecting
+    this.webSocketService.listenForNotificationDigest()
+      .pipe(takeUntil(this.destroy$))
+      .subscribe({
+        next: (digest) => {
+          console.log('Received notification digest:', digest);
+          this.notificationService.updateUnreadCount(digest.unreadCount);
+          this.loadNotifications();
+        },
+        error: (error) => {
+          console.error('Error receiving notification digest:', error);
+        }
+      });
+
+    // Subscribe to system-wide announcements
+    this.webSocketService.listenForAnnouncements()
+      .pipe(takeUntil(this.destroy$))
+      .subscribe({
+        next: (announcement) => {
+          console.log('Received announcement:', announcement);
+          if (this.isPermissionGranted) {
+            this.showBrowserNotification(announcement.title, {
+              body: announcement.message,
+              tag: announcement.announcementId
+            });
+          }
+        },
+        error: (error) => {
+          console.error('Error receiving announcement:', error);
+        }
+      });
+
     // Subscribe to WebSocket unread count updates
     this.webSocketService.listenForUnreadCount()
       .pipe(takeUntil(this.destroy$))
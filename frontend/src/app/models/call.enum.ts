@@ -2,7 +2,8 @@ export enum CallStatus {
   RINGING = 'RINGING',
   ONGOING = 'ONGOING',
   REJECTED = 'REJECTED',
-  ENDED = 'ENDED'
+  ENDED = 'ENDED',
+  MISSED = 'MISSED'
 }
 
 export enum CallType {
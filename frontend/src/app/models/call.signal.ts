@@ -7,5 +7,6 @@ export interface CallSignal {
   participants?: string[]; // UUIDs as strings, for group calls
   type: SignalType;
   payload: any; // SDP offer/answer or ICE candidate
+  candidates?: any[]; // ICE candidates batched by the server; payload is then empty
   callId?: string; // Add if needed for call tracking
 }
\ No newline at end of file
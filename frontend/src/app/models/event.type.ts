@@ -11,3 +11,8 @@ export interface ConversationUpdatedEvent {
   eventType: 'NEW_CONVERSATION';
   conversation: Conversation;
 }
+
+export interface TypingEvent {
+  conversationId: string;
+  typingUserIds: string[];
+}
@@ -13,6 +13,34 @@ export interface Notification {
   readAt?: string;
 }
 
+export interface NotificationDigestEntry {
+  type: NotificationType;
+  conversationId?: string;
+  count: number;
+  latestTitle: string;
+  latestMessage: string;
+  latestSenderId?: string;
+  latestSenderName?: string;
+  latestAt: string;
+}
+
+export interface NotificationDigest {
+  entries: NotificationDigestEntry[];
+  totalCount: number;
+  unreadCount: number;
+  since: string;
+}
+
+export interface Announcement {
+  announcementId: string;
+  senderId?: string;
+  title: string;
+  message: string;
+  data?: string;
+  isRead: boolean;
+  createdAt: string;
+}
+
 export enum NotificationType {
   NEW_MESSAGE = 'NEW_MESSAGE',
   NEW_CONVERSATION = 'NEW_CONVERSATION',
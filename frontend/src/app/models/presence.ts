@@ -0,0 +1,11 @@
+export enum PresenceStatus {
+  ONLINE = 'ONLINE',
+  OFFLINE = 'OFFLINE',
+  AWAY = 'AWAY'
+}
+
+export interface Presence {
+  userId: string;
+  status: PresenceStatus;
+  lastSeenAt?: string;
+}
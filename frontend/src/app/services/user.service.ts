@@ -5,6 +5,7 @@ import { catchError } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
 import { ApiResponse } from '../models/api-response';
 import { UserResponse } from '../models/user-response';
+import { Presence } from '../models/presence';
 
 @Injectable({
   providedIn: 'root'
@@ -30,6 +31,12 @@ export class UserService {
     );
   }
 
+  getPresence(ids: string[]): Observable<ApiResponse<Presence[]>> {
+    return this.http.post<ApiResponse<Presence[]>>(`${this.apiUrl}/presence`, ids).pipe(
+      catchError(error => this.handleError('Failed to get presence', error))
+    );
+  }
+
   private handleError(message: string, error: any): Observable<never> {
     console.error(message, error);
     return throwError(() => ({
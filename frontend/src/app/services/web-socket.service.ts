@@ -12,8 +12,10 @@ import { ApiResponse } from '../models/api-response';
 import {
   ConversationUpdatedEvent,
   NewMessageEvent,
+  TypingEvent,
 } from '../models/event.type';
-import { Notification as NotificationModel } from '../models/notification';
+import { Announcement, Notification as NotificationModel, NotificationDigest } from '../models/notification';
+import { Presence } from '../models/presence';
 
 @Injectable({ providedIn: 'root' })
 export class WebSocketService implements OnDestroy {
@@ -33,6 +35,7 @@ export class WebSocketService implements OnDestroy {
   private readonly maxReconnectAttempts = 5;
   private readonly reconnectInterval = 5000;
   private readonly destroy$ = new Subject<void>();
+  private drainTimer?: ReturnType<typeof setTimeout>;
   private isInitialized = false;
   private connectionPromise: Promise<void> | null = null;
 
@@ -47,6 +50,7 @@ export class WebSocketService implements OnDestroy {
   }
 
   ngOnDestroy(): void {
+    clearTimeout(this.drainTimer);
     this.destroy$.next();
     this.destroy$.complete();
     this.disconnect();
@@ -116,6 +120,25 @@ export class WebSocketService implements OnDestroy {
     return localStorage.getItem('token');
   }
 
+  private getTransport(): 'sockjs' | 'native' {
+    const override = localStorage.getItem('wsTransport');
+    if (override === 'sockjs' || override === 'native') {
+      return override;
+    }
+    return environment.wsTransport;
+  }
+
+  private createSocket(): any {
+    if (this.getTransport() === 'native' && typeof WebSocket !== 'undefined') {
+      // Same host, ws(s):// scheme; the browser negotiates permessage-deflate on its own
+      const url = `${environment.wsUrl.replace(/^http/, 'ws')}/ws-native`;
+      console.log('Creating native WebSocket connection to:', url);
+      return new WebSocket(url);
+    }
+    console.log('Creating SockJS connection to:', `${environment.wsUrl}/ws`);
+    return new SockJS(`${environment.wsUrl}/ws`);
+  }
+
   private initializeConnection(): void {
     const token = this.getToken();
     
@@ -135,10 +158,7 @@ export class WebSocketService implements OnDestroy {
 
     this.connectionPromise = new Promise<void>((resolve, reject) => {
       this.stompClient = new Client({
-        webSocketFactory: () => {
-          console.log('Creating SockJS connection to:', `${environment.wsUrl}/ws`);
-          return new SockJS(`${environment.wsUrl}/ws`);
-        },
+        webSocketFactory: () => this.createSocket(),
         connectHeaders: {
           Authorization: `Bearer ${token}`,
         },
@@ -179,6 +199,9 @@ export class WebSocketService implements OnDestroy {
     this._connected$.next(true);
     this.connectionStatus.next(true);
 
+    // Drain notices from a node that is shutting down
+    this.stompClient.subscribe('/user/queue/server', (message) => this.handleServerNotice(message));
+
     // Wait a bit longer to ensure connection is fully established
     setTimeout(() => {
       // Double-check that STOMP client is still connected
@@ -198,6 +221,21 @@ export class WebSocketService implements OnDestroy {
     }, 1000); // Increased delay to ensure connection is stable
   }
 
+  // The server spreads reconnects over its drain window by giving each session its own delay
+  private handleServerNotice(message: StompIMessage): void {
+    try {
+      const notice = JSON.parse(message.body);
+      if (notice.type === 'RECONNECT') {
+        const delay = Math.max(0, Number(notice.reconnectInMs) || 0);
+        console.log(`Server is draining, reconnecting in ${delay} ms`);
+        clearTimeout(this.drainTimer);
+        this.drainTimer = setTimeout(() => this.stompClient.forceDisconnect(), delay);
+      }
+    } catch (error) {
+      console.error('Error parsing server notice:', error);
+    }
+  }
+
   private handleError(frame: any): void {
     console.error('STOMP error:', frame.headers['message'], frame.body);
     console.error('STOMP error details:', frame);
@@ -365,8 +403,9 @@ export class WebSocketService implements OnDestroy {
     conversationId: string
   ): Observable<ApiResponse<NewMessageEvent>> {
     return new Observable<ApiResponse<NewMessageEvent>>((subscriber) => {
+      let subscription: StompSubscription | null = null;
       // Wait for connection to be established
-      this.connected$
+      const connection = this.connected$
         .pipe(
           filter(connected => connected),
           take(1),
@@ -379,7 +418,7 @@ export class WebSocketService implements OnDestroy {
             return;
           }
 
-          const subscription = this.stompClient.subscribe(
+          subscription = this.stompClient.subscribe(
             `/topic/conversation/${conversationId}/messages`,
             (message) => {
               try {
@@ -396,11 +435,13 @@ export class WebSocketService implements OnDestroy {
               Authorization: `Bearer ${token}`,
             }
           );
-          
-          return () => {
-            subscription.unsubscribe();
-          };
         });
+
+      // The UNSUBSCRIBE tells the server the conversation is no longer open
+      return () => {
+        connection.unsubscribe();
+        subscription?.unsubscribe();
+      };
     });
   }
 
@@ -462,6 +503,64 @@ export class WebSocketService implements OnDestroy {
     });
   }
 
+  // Digest of notifications collected while offline, replied once per (re)connect
+  listenForNotificationDigest(): Observable<NotificationDigest> {
+    return this.subscribe<NotificationDigest>('/app/notifications/digest');
+  }
+
+  // System-wide announcements, pushed once on a shared topic
+  listenForAnnouncements(): Observable<Announcement> {
+    return this.subscribe<Announcement>('/topic/announcements');
+  }
+
+  // Snapshot after watchPresence(), then one-element diffs when a watched user changes status
+  listenForPresence(): Observable<Presence[]> {
+    return this.subscribe<Presence[]>('/user/queue/presence');
+  }
+
+  watchPresence(userIds: string[]): void {
+    this.sendMessage('/app/presence/watch', { userIds });
+  }
+
+  unwatchPresence(userIds: string[] = []): void {
+    this.sendMessage('/app/presence/unwatch', { userIds });
+  }
+
+  // Ephemeral typing indicator; the server throttles and coalesces, this only needs to be sent on input
+  sendTyping(conversationId: string, typing: boolean): void {
+    this.sendMessage(`/app/chat/${conversationId}/typing`, { typing });
+  }
+
+  // Unsubscribes from the topic when the caller unsubscribes, e.g. on switching conversations
+  listenForTyping(conversationId: string): Observable<TypingEvent> {
+    return new Observable<TypingEvent>((subscriber) => {
+      let subscription: StompSubscription | null = null;
+      const connection = this.connected$
+        .pipe(
+          filter(connected => connected),
+          take(1),
+          takeUntil(this.destroy$)
+        )
+        .subscribe(() => {
+          subscription = this.stompClient.subscribe(
+            `/topic/conversation/${conversationId}/typing`,
+            (message) => {
+              try {
+                subscriber.next(JSON.parse(message.body));
+              } catch (error) {
+                console.error('Error parsing typing event:', error);
+              }
+            }
+          );
+        });
+
+      return () => {
+        connection.unsubscribe();
+        subscription?.unsubscribe();
+      };
+    });
+  }
+
   // Listen for unread count updates
   listenForUnreadCount(): Observable<number> {
     console.log('Setting up unread count listener...');
@@ -3,6 +3,9 @@ export const environment = {
   apiUrl: 'https://thawhtinaung.online/api',
   baseUrl: 'https://thawhtinaung.online',
   wsUrl: 'https://thawhtinaung.online',
+  // 'sockjs' (/ws, with HTTP fallbacks) or 'native' (/ws-native, plain WebSocket with permessage-deflate).
+  // Can be overridden per browser with localStorage 'wsTransport'.
+  wsTransport: 'sockjs' as 'sockjs' | 'native',
   webrtc: {
     iceServers: [
       // Primary TURN servers for Myanmar ISPs